@@ -0,0 +1,101 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import guru.springframework.sfgrestbrewery.SfgReactiveBreweryApplication;
+import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uncached UPC and filtered listing lookups against a large synthetic catalog, with the indexes of schema-h2.sql
+ * (mirrored in schema-postgresql.sql) in place and dropped. Loading the default million rows takes a while per fork,
+ * and the in-memory database and the name index built at startup need a larger heap than the default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BeerLookupBenchmark {
+
+    private static final BeerStyleEnum[] BEER_STYLES = BeerStyleEnum.values();
+
+    @Param({"true", "false"})
+    boolean indexed;
+
+    @Param({"1000000"})
+    int syntheticBeers;
+
+    ConfigurableApplicationContext context;
+    BeerService beerService;
+
+    @Setup
+    public void setUp() {
+        // caches off, so every call reaches the database
+        context = new SpringApplicationBuilder(SfgReactiveBreweryApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=warn",
+                        "--logging.level.guru.springframework.sfgrestbrewery=warn",
+                        "--logging.level.org.springframework.data.r2dbc=warn",
+                        "--logging.level.org.springframework.r2dbc=warn",
+                        "--logging.level.io.r2dbc=warn",
+                        "--sfg.brewery.cache.beer.maximum-size=0",
+                        "--sfg.brewery.cache.beer-upc.maximum-size=0",
+                        "--sfg.brewery.cache.beer-list.maximum-size=0",
+                        "--sfg.brewery.cache.beer-count.maximum-size=0",
+                        "--sfg.brewery.loader.synthetic-beers=" + syntheticBeers);
+
+        beerService = context.getBean(BeerService.class);
+
+        if (!indexed) {
+            final var databaseClient = context.getBean(DatabaseClient.class);
+
+            for (String index : new String[]{"beer_upc_uk", "beer_style_name_id_idx", "beer_name_id_idx"}) {
+                databaseClient.sql("DROP INDEX IF EXISTS " + index).then().block();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BeerDto getByUpc() {
+        return beerService.getByUpc(String.format("9%012d", randomSyntheticBeer())).block();
+    }
+
+    @Benchmark
+    public BeerPagedList listBeersByStyleAndName() {
+        final var beer = randomSyntheticBeer();
+
+        return beerService.listBeers("Synthetic Beer " + beer, BEER_STYLES[beer % BEER_STYLES.length],
+                PageRequest.of(0, 25), false).block();
+    }
+
+    private int randomSyntheticBeer() {
+        return ThreadLocalRandom.current().nextInt(1, syntheticBeers + 1);
+    }
+}
@@ -0,0 +1,67 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapperImpl;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerMapperBenchmark {
+
+    BeerMapper beerMapper;
+    Beer beer;
+    BeerDto beerDto;
+
+    @Setup
+    public void setUp() {
+        beerMapper = new BeerMapperImpl();
+        beer = Beer.builder()
+                .id(1)
+                .version(1L)
+                .beerName("Mango Bobs")
+                .beerStyle(BeerStyleEnum.ALE)
+                .upc("0631234200036")
+                .quantityOnHand(120)
+                .price(new BigDecimal("12.95"))
+                .createdDate(LocalDateTime.now())
+                .lastModifiedDate(LocalDateTime.now())
+                .build();
+        beerDto = beerMapper.beerToBeerDtoWithInventory(beer);
+        beerDto.setId(null);
+    }
+
+    @Benchmark
+    public BeerDto beerToBeerDto() {
+        return beerMapper.beerToBeerDto(beer);
+    }
+
+    @Benchmark
+    public BeerDto beerToBeerDtoWithInventory() {
+        return beerMapper.beerToBeerDtoWithInventory(beer);
+    }
+
+    @Benchmark
+    public Beer beerDtoToBeer() {
+        return beerMapper.beerDtoToBeer(beerDto);
+    }
+}
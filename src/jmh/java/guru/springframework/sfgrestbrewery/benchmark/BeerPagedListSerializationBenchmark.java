@@ -0,0 +1,65 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerPagedListSerializationBenchmark {
+
+    @Param({"25", "250"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    BeerPagedList beerPagedList;
+
+    @Setup
+    public void setUp() {
+        // same builder Spring Boot uses for the WebFlux codecs
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        final var beers = new ArrayList<BeerDto>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            beers.add(BeerDto.builder()
+                    .id(i)
+                    .beerName("Beer " + i)
+                    .beerStyle(BeerStyleEnum.values()[i % BeerStyleEnum.values().length].name())
+                    .upc(String.format("%013d", i))
+                    .price(new BigDecimal("9.99"))
+                    .createdDate(LocalDateTime.now())
+                    .build());
+        }
+
+        beerPagedList = new BeerPagedList(beers, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(beerPagedList);
+    }
+}
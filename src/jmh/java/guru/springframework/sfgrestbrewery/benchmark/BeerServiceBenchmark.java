@@ -0,0 +1,103 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import guru.springframework.sfgrestbrewery.SfgReactiveBreweryApplication;
+import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BeerService against the embedded H2 R2DBC database, with the in-process caches on and off, and optionally
+ * with reads served from the in-memory catalog replica (-p replicated=true).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerServiceBenchmark {
+
+    @Param({"true", "false"})
+    boolean cached;
+
+    @Param({"false"})
+    boolean replicated;
+
+    @Param({"0"})
+    int syntheticBeers;
+
+    ConfigurableApplicationContext context;
+    BeerService beerService;
+
+    @Setup
+    public void setUp() {
+        final var cacheSize = cached ? "10000" : "0";
+
+        // command line args, so they win over application.properties
+        context = new SpringApplicationBuilder(SfgReactiveBreweryApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=warn",
+                        "--logging.level.guru.springframework.sfgrestbrewery=warn",
+                        "--logging.level.org.springframework.data.r2dbc=warn",
+                        "--logging.level.org.springframework.r2dbc=warn",
+                        "--logging.level.io.r2dbc=warn",
+                        "--sfg.brewery.cache.beer.maximum-size=" + cacheSize,
+                        "--sfg.brewery.cache.beer-upc.maximum-size=" + cacheSize,
+                        "--sfg.brewery.cache.beer-list.maximum-size=" + cacheSize,
+                        "--sfg.brewery.cache.beer-count.maximum-size=" + cacheSize,
+                        "--sfg.brewery.cache.replica.enabled=" + replicated,
+                        "--sfg.brewery.loader.synthetic-beers=" + syntheticBeers);
+
+        beerService = context.getBean(BeerService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BeerDto getById() {
+        return beerService.getById(5, false).block();
+    }
+
+    @Benchmark
+    public BeerDto getByIdWithInventory() {
+        return beerService.getById(5, true).block();
+    }
+
+    @Benchmark
+    public BeerDto getByUpc() {
+        return beerService.getByUpc(BeerLoader.BEER_3_UPC).block();
+    }
+
+    @Benchmark
+    public BeerPagedList listBeers() {
+        return beerService.listBeers(null, null, PageRequest.of(0, 25), false).block();
+    }
+
+    @Benchmark
+    public BeerPagedList listBeersByStyle() {
+        return beerService.listBeers(null, BeerStyleEnum.STOUT, PageRequest.of(0, 25), false).block();
+    }
+}
@@ -0,0 +1,203 @@
+package guru.springframework.sfgrestbrewery.loadtest;
+
+import guru.springframework.sfgrestbrewery.SfgReactiveBreweryApplication;
+import guru.springframework.sfgrestbrewery.web.functional.BeerRouterConfig;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Closed-loop HTTP load generator for the v1 (annotated controller) and v2 (functional router) beer APIs.
+ *
+ * Starts the application on a random port with the in-memory H2 database, then runs a warmup and a measured
+ * phase per API with a fixed number of concurrent callers. Options are system properties:
+ * <ul>
+ *     <li>loadtest.apis - comma separated, v1 and/or v2 (default v1,v2)</li>
+ *     <li>loadtest.mix - operation weights, e.g. getById=60,getByUpc=30,list=10,update=0 (the default)</li>
+ *     <li>loadtest.concurrency - concurrent callers and client connections (default 64)</li>
+ *     <li>loadtest.warmup / loadtest.duration - ISO-8601 durations (default PT10S / PT30S)</li>
+ *     <li>loadtest.syntheticBeers - generated beers to load on top of the seed catalog (default 0)</li>
+ * </ul>
+ * Each operation hits the same endpoint shape on both APIs, so the v1 and v2 rows compare like with like.
+ */
+public class BeerLoadTest {
+
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+    private final Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    private final Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    private final Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "getById=60,getByUpc=30,list=10,update=0"));
+
+    private final WebClient webClient;
+    private final List<BeerDto> catalog;
+
+    BeerLoadTest(int port) {
+        final var connectionProvider = ConnectionProvider.builder("loadtest")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+
+        webClient = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+
+        catalog = webClient.get().uri(BeerRouterConfig.BEER_V2_URL_EXPORT)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerDto.class)
+                .collectList()
+                .block();
+    }
+
+    public static void main(String[] args) {
+        // devtools would relaunch main in a restart class loader and exit non-zero when it returns
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        final var context = new SpringApplicationBuilder(SfgReactiveBreweryApplication.class)
+                .run("--server.port=0",
+                        "--logging.level.root=warn",
+                        "--logging.level.guru.springframework.sfgrestbrewery=warn",
+                        "--logging.level.reactor.netty.http=warn",
+                        "--logging.level.org.springframework.data.r2dbc=warn",
+                        "--logging.level.org.springframework.r2dbc=warn",
+                        "--logging.level.io.r2dbc=warn",
+                        "--sfg.brewery.loader.synthetic-beers=" + Integer.getInteger("loadtest.syntheticBeers", 0));
+
+        try {
+            final var loadTest = new BeerLoadTest(Integer.parseInt(context.getEnvironment().getProperty("local.server.port")));
+
+            for (String api : System.getProperty("loadtest.apis", "v1,v2").split(",")) {
+                loadTest.run(api.trim());
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    void run(String api) {
+        final var operations = operations(api);
+
+        if (!operations.keySet().containsAll(mix.keySet())) {
+            throw new IllegalArgumentException("Unknown operation in mix " + mix.keySet() + ", expected " + operations.keySet());
+        }
+
+        System.out.printf("%nWarming up %s for %s with %d callers...%n", api, warmup, concurrency);
+        drive(operations, warmup, new LatencyReport());
+
+        System.out.printf("Measuring %s for %s with %d callers...%n", api, duration, concurrency);
+        final var report = new LatencyReport();
+        drive(operations, duration, report);
+
+        report.print(System.out, api + " (" + concurrency + " callers, " + duration + ")", duration);
+    }
+
+    private void drive(Map<String, Function<BeerDto, Mono<?>>> operations, Duration runFor, LatencyReport report) {
+        final var deadline = System.nanoTime() + runFor.toNanos();
+
+        Flux.range(0, concurrency)
+                .flatMap(caller -> Mono.defer(() -> call(operations, report))
+                        .repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+    }
+
+    private Mono<Void> call(Map<String, Function<BeerDto, Mono<?>>> operations, LatencyReport report) {
+        final var operation = pickOperation();
+        final var beer = catalog.get(ThreadLocalRandom.current().nextInt(catalog.size()));
+        final var start = System.nanoTime();
+
+        return operations.get(operation).apply(beer)
+                .doOnSuccess(response -> report.recordLatency(operation, System.nanoTime() - start))
+                .onErrorResume(e -> {
+                    report.recordError(operation);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private String pickOperation() {
+        final var totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        var pick = ThreadLocalRandom.current().nextInt(totalWeight);
+
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+
+        throw new IllegalStateException("Empty request mix");
+    }
+
+    private Map<String, Function<BeerDto, Mono<?>>> operations(String api) {
+        final var operations = new LinkedHashMap<String, Function<BeerDto, Mono<?>>>();
+
+        if ("v1".equals(api)) {
+            operations.put("getById", beer -> get("/api/v1/beer/" + beer.getId()));
+            operations.put("getByUpc", beer -> get("/api/v1/beerUpc/" + beer.getUpc()));
+            operations.put("list", beer -> get("/api/v1/beerCursor?pageSize=25"));
+            operations.put("update", beer -> put("/api/v1/beer/" + beer.getId(), beer));
+        } else if ("v2".equals(api)) {
+            operations.put("getById", beer -> get(BeerRouterConfig.BEER_V2_URL + "/" + beer.getId()));
+            operations.put("getByUpc", beer -> get("/api/v2/beerUpc/" + beer.getUpc()));
+            operations.put("list", beer -> get(BeerRouterConfig.BEER_V2_URL_CURSOR + "?pageSize=25"));
+            operations.put("update", beer -> put(BeerRouterConfig.BEER_V2_URL + "/" + beer.getId(), beer));
+        } else {
+            throw new IllegalArgumentException("Unknown api: " + api);
+        }
+
+        return operations;
+    }
+
+    private Mono<byte[]> get(String uri) {
+        return webClient.get().uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(byte[].class);
+    }
+
+    private Mono<?> put(String uri, BeerDto beer) {
+        final var update = BeerDto.builder()
+                .beerName(beer.getBeerName())
+                .beerStyle(beer.getBeerStyle())
+                .upc(beer.getUpc())
+                .price(new BigDecimal(BigInteger.valueOf(ThreadLocalRandom.current().nextInt(10000)), 2))
+                .build();
+
+        return webClient.put().uri(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(update))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        final var weights = new LinkedHashMap<String, Integer>();
+
+        for (String entry : mix.split(",")) {
+            final var parts = entry.split("=");
+            final var weight = Integer.parseInt(parts[1].trim());
+
+            if (weight > 0) {
+                weights.put(parts[0].trim(), weight);
+            }
+        }
+
+        return weights;
+    }
+}
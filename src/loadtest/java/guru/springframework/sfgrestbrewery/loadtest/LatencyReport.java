@@ -0,0 +1,74 @@
+package guru.springframework.sfgrestbrewery.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per operation for one measured run.
+ */
+class LatencyReport {
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void recordLatency(String operation, long nanos) {
+        latencies.computeIfAbsent(operation, op -> new ConcurrentHistogram(3)).recordValue(nanos);
+    }
+
+    void recordError(String operation) {
+        errors.computeIfAbsent(operation, op -> new LongAdder()).increment();
+    }
+
+    void print(PrintStream out, String title, Duration duration) {
+        final var seconds = duration.toMillis() / 1000.0;
+        final var total = new ConcurrentHistogram(3);
+        long totalErrors = 0;
+
+        out.println();
+        out.println("== " + title + " ==");
+        out.printf("%-12s %10s %8s %10s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        // an operation whose calls all failed has errors but no latencies
+        final var operations = new TreeSet<>(latencies.keySet());
+        operations.addAll(errors.keySet());
+
+        for (String operation : operations) {
+            final var histogram = latencies.getOrDefault(operation, new Histogram(3));
+            final var operationErrors = errorCount(operation);
+            printRow(out, operation, histogram, operationErrors, seconds);
+            total.add(histogram);
+            totalErrors += operationErrors;
+        }
+
+        printRow(out, "total", total, totalErrors, seconds);
+    }
+
+    private long errorCount(String operation) {
+        final var count = errors.get(operation);
+        return count != null ? count.sum() : 0;
+    }
+
+    private static void printRow(PrintStream out, String operation, Histogram histogram, long errors, double seconds) {
+        out.printf("%-12s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f%n",
+                operation,
+                histogram.getTotalCount(),
+                errors,
+                histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
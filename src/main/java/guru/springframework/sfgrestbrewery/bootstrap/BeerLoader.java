@@ -1,16 +1,25 @@
 package guru.springframework.sfgrestbrewery.bootstrap;
 
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogReplica;
+import guru.springframework.sfgrestbrewery.config.BeerIngestProperties;
+import guru.springframework.sfgrestbrewery.config.BeerLoaderProperties;
 import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.repositories.BeerBulkRepository;
 import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.search.BeerNameIndex;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -54,339 +63,98 @@ public class BeerLoader implements CommandLineRunner {
 
 
     private final BeerRepository beerRepository;
+    private final BeerBulkRepository beerBulkRepository;
+    private final BeerLoaderProperties loaderProperties;
+    private final BeerIngestProperties ingestProperties;
+    private final BeerNameIndex beerNameIndex;
+    private final BeerCatalogReplica beerCatalogReplica;
+    private final BeerMapper beerMapper;
+
+    private final Random random = new Random();
 
     @Override
     public void run(String... args) throws Exception {
-        loadBeerObjects();
+        // the pipeline itself does not block; startup waits for it once so the API never serves an empty catalog
+        loadBeerObjects().then(indexBeers()).block();
     }
 
-    private synchronized void loadBeerObjects() {
-        log.debug("Loading initial data. Count is: {}", beerRepository.count().block());
-
-        if (beerRepository.count().block() == 0) {
-
-            Random random = new Random();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Mango Bobs")
-                    .beerStyle(BeerStyleEnum.ALE)
-                    .upc(BEER_1_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Galaxy Cat")
-                    .beerStyle(BeerStyleEnum.PALE_ALE)
-                    .upc(BEER_2_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("No Hammers On The Bar")
-                    .beerStyle(BeerStyleEnum.WHEAT)
-                    .upc(BEER_3_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Blessed")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_4_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Adjunct Trail")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_5_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Very GGGreenn")
-                    .beerStyle(BeerStyleEnum.IPA)
-                    .upc(BEER_6_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Double Barrel Hunahpu's")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_7_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Very Hazy")
-                    .beerStyle(BeerStyleEnum.IPA)
-                    .upc(BEER_8_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("SR-71")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_9_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Pliny the Younger")
-                    .beerStyle(BeerStyleEnum.IPA)
-                    .upc(BEER_10_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Blessed")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_11_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("King Krush")
-                    .beerStyle(BeerStyleEnum.IPA)
-                    .upc(BEER_12_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("PBS Porter")
-                    .beerStyle(BeerStyleEnum.PORTER)
-                    .upc(BEER_13_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Pinball Porter")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_14_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Golden Budda")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_15_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Grand Central Red")
-                    .beerStyle(BeerStyleEnum.LAGER)
-                    .upc(BEER_16_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Pac-Man")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_17_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Ro Sham Bo")
-                    .beerStyle(BeerStyleEnum.IPA)
-                    .upc(BEER_18_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Summer Wheatly")
-                    .beerStyle(BeerStyleEnum.WHEAT)
-                    .upc(BEER_19_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Java Jill")
-                    .beerStyle(BeerStyleEnum.LAGER)
-                    .upc(BEER_20_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Bike Trail Pale")
-                    .beerStyle(BeerStyleEnum.PALE_ALE)
-                    .upc(BEER_21_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("N.Z.P")
-                    .beerStyle(BeerStyleEnum.IPA)
-                    .upc(BEER_22_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Stawberry Blond")
-                    .beerStyle(BeerStyleEnum.WHEAT)
-                    .upc(BEER_23_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Loco")
-                    .beerStyle(BeerStyleEnum.PORTER)
-                    .upc(BEER_24_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Spocktoberfest")
-                    .beerStyle(BeerStyleEnum.STOUT)
-                    .upc(BEER_25_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
-
-            beerRepository.save(Beer.builder()
-                    .beerName("Beach Blond Ale")
-                    .beerStyle(BeerStyleEnum.ALE)
-                    .upc(BEER_26_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
+    private Mono<Void> loadBeerObjects() {
+        return beerRepository.count()
+                .doOnNext(count -> log.debug("Loading initial data. Count is: {}", count))
+                .filter(count -> count == 0)
+                .flatMap(count -> beerBulkRepository.insertAll(seedBeers())
+                        .concatWith(syntheticBeers())
+                        .count())
+                .doOnNext(loaded -> log.debug("Beer Records loaded: {}", loaded))
+                .then();
+    }
 
-            beerRepository.save(Beer.builder()
-                    .beerName("Bimini Twist IPA")
-                    .beerStyle(BeerStyleEnum.IPA)
-                    .upc(BEER_27_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
+    private Mono<Void> indexBeers() {
+        // the write paths keep the name index and the replica current from here on
+        return beerRepository.findAll()
+                .doOnNext(beerNameIndex::put)
+                .filter(beer -> beerCatalogReplica.isEnabled())
+                .map(beerMapper::beerToBeerDto)
+                .collectList()
+                .doOnNext(beerCatalogReplica::load)
+                .doOnNext(replicated -> log.debug("Beer names indexed: {}, replicated: {}", beerNameIndex.size(), replicated.size()))
+                .then();
+    }
 
-            beerRepository.save(Beer.builder()
-                    .beerName("Rod Bender Red Ale")
-                    .beerStyle(BeerStyleEnum.ALE)
-                    .upc(BEER_28_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
+    private List<Beer> seedBeers() {
+        return List.of(
+            newBeer("Mango Bobs", BeerStyleEnum.ALE, BEER_1_UPC),
+            newBeer("Galaxy Cat", BeerStyleEnum.PALE_ALE, BEER_2_UPC),
+            newBeer("No Hammers On The Bar", BeerStyleEnum.WHEAT, BEER_3_UPC),
+            newBeer("Blessed", BeerStyleEnum.STOUT, BEER_4_UPC),
+            newBeer("Adjunct Trail", BeerStyleEnum.STOUT, BEER_5_UPC),
+            newBeer("Very GGGreenn", BeerStyleEnum.IPA, BEER_6_UPC),
+            newBeer("Double Barrel Hunahpu's", BeerStyleEnum.STOUT, BEER_7_UPC),
+            newBeer("Very Hazy", BeerStyleEnum.IPA, BEER_8_UPC),
+            newBeer("SR-71", BeerStyleEnum.STOUT, BEER_9_UPC),
+            newBeer("Pliny the Younger", BeerStyleEnum.IPA, BEER_10_UPC),
+            newBeer("Blessed", BeerStyleEnum.STOUT, BEER_11_UPC),
+            newBeer("King Krush", BeerStyleEnum.IPA, BEER_12_UPC),
+            newBeer("PBS Porter", BeerStyleEnum.PORTER, BEER_13_UPC),
+            newBeer("Pinball Porter", BeerStyleEnum.STOUT, BEER_14_UPC),
+            newBeer("Golden Budda", BeerStyleEnum.STOUT, BEER_15_UPC),
+            newBeer("Grand Central Red", BeerStyleEnum.LAGER, BEER_16_UPC),
+            newBeer("Pac-Man", BeerStyleEnum.STOUT, BEER_17_UPC),
+            newBeer("Ro Sham Bo", BeerStyleEnum.IPA, BEER_18_UPC),
+            newBeer("Summer Wheatly", BeerStyleEnum.WHEAT, BEER_19_UPC),
+            newBeer("Java Jill", BeerStyleEnum.LAGER, BEER_20_UPC),
+            newBeer("Bike Trail Pale", BeerStyleEnum.PALE_ALE, BEER_21_UPC),
+            newBeer("N.Z.P", BeerStyleEnum.IPA, BEER_22_UPC),
+            newBeer("Stawberry Blond", BeerStyleEnum.WHEAT, BEER_23_UPC),
+            newBeer("Loco", BeerStyleEnum.PORTER, BEER_24_UPC),
+            newBeer("Spocktoberfest", BeerStyleEnum.STOUT, BEER_25_UPC),
+            newBeer("Beach Blond Ale", BeerStyleEnum.ALE, BEER_26_UPC),
+            newBeer("Bimini Twist IPA", BeerStyleEnum.IPA, BEER_27_UPC),
+            newBeer("Rod Bender Red Ale", BeerStyleEnum.ALE, BEER_28_UPC),
+            newBeer("Floating Dock", BeerStyleEnum.SAISON, BEER_29_UPC),
+            newBeer("El Hefe", BeerStyleEnum.WHEAT, BEER_30_UPC));
+    }
 
-            beerRepository.save(Beer.builder()
-                    .beerName("Floating Dock")
-                    .beerStyle(BeerStyleEnum.SAISON)
-                    .upc(BEER_29_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
+    private Flux<Integer> syntheticBeers() {
+        final var beerStyles = BeerStyleEnum.values();
 
-            beerRepository.save(Beer.builder()
-                    .beerName("El Hefe")
-                    .beerStyle(BeerStyleEnum.WHEAT)
-                    .upc(BEER_30_UPC)
-                    .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                    .quantityOnHand(random.nextInt(5000))
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .createdDate(LocalDateTime.now())
-                    .lastModifiedDate(LocalDateTime.now())
-                    .build()).block();
+        return Flux.range(1, loaderProperties.getSyntheticBeers())
+                .map(i -> newBeer("Synthetic Beer " + i, beerStyles[i % beerStyles.length], String.format("9%012d", i)))
+                .buffer(ingestProperties.getBatchSize())
+                .concatMap(beerBulkRepository::insertAll);
+    }
 
-            log.debug("Beer Records loaded: {}", beerRepository.count().block());
-        }
+    private Beer newBeer(String beerName, BeerStyleEnum beerStyle, String upc) {
+        final var now = LocalDateTime.now();
+
+        return Beer.builder()
+                .beerName(beerName)
+                .beerStyle(beerStyle)
+                .upc(upc)
+                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
+                .quantityOnHand(random.nextInt(5000))
+                .createdDate(now)
+                .lastModifiedDate(now)
+                .build();
     }
 }
@@ -0,0 +1,280 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the beer table for reads that do not show the quantity on hand. Readers see an immutable
+ * snapshot indexed by id, upc, style and name and never touch the database. Writers copy the parts of the
+ * snapshot they change and publish a new one, so a write costs a few array copies of the catalog.
+ *
+ * The replica serves nothing until it is loaded at startup; changes made while it loads are replayed on top.
+ * Removed ids are remembered, so a read-back that raced with a delete cannot bring the beer back; ids are
+ * never reused by the database.
+ */
+public class BeerCatalogReplica {
+
+    private static final Comparator<BeerDto> BY_ID = Comparator.comparing(BeerDto::getId);
+
+    private final boolean enabled;
+    private final List<Change> pendingChanges = new ArrayList<>();
+
+    private volatile Snapshot snapshot;
+
+    public BeerCatalogReplica(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isServing() {
+        return snapshot != null;
+    }
+
+    public synchronized void load(Collection<BeerDto> beers) {
+        if (!enabled) {
+            return;
+        }
+
+        var loaded = Snapshot.EMPTY.apply(beers, List.of());
+
+        for (Change change : pendingChanges) {
+            loaded = loaded.apply(change.upserts, change.removedIds);
+        }
+
+        pendingChanges.clear();
+        snapshot = loaded;
+    }
+
+    public void put(BeerDto beer) {
+        apply(List.of(beer), List.of());
+    }
+
+    public void putAll(Collection<BeerDto> beers) {
+        apply(beers, List.of());
+    }
+
+    public void remove(Integer id) {
+        apply(List.of(), List.of(id));
+    }
+
+    public Optional<BeerDto> findById(Integer id) {
+        return Optional.ofNullable(snapshot.byId.get(id));
+    }
+
+    public Optional<BeerDto> findByUpc(String upc) {
+        return Optional.ofNullable(snapshot.byUpc.get(upc));
+    }
+
+    /**
+     * Returns the beers with the given name and style in id order. A null name or style matches any.
+     */
+    public List<BeerDto> findAll(String beerName, String beerStyle) {
+        final var current = snapshot;
+
+        if (beerName != null) {
+            final var named = current.byName.getOrDefault(beerName, List.of());
+
+            return beerStyle == null ? named : named.stream()
+                    .filter(beer -> beerStyle.equals(beer.getBeerStyle()))
+                    .collect(Collectors.toList());
+        }
+
+        return beerStyle == null ? current.all : current.byStyle.getOrDefault(beerStyle, List.of());
+    }
+
+    /**
+     * Returns up to limit beers of the given style, or of any style if it is null, with an id above afterId,
+     * in id order. A null afterId starts at the first beer.
+     */
+    public List<BeerDto> findAfter(String beerStyle, Integer afterId, int limit) {
+        final var beers = findAll(null, beerStyle);
+        final var from = afterId != null ? indexAfter(beers, afterId) : 0;
+
+        return beers.subList(from, Math.min(beers.size(), from + limit));
+    }
+
+    private synchronized void apply(Collection<BeerDto> upserts, Collection<Integer> removedIds) {
+        if (!enabled || (upserts.isEmpty() && removedIds.isEmpty())) {
+            return;
+        }
+
+        if (snapshot == null) {
+            pendingChanges.add(new Change(List.copyOf(upserts), List.copyOf(removedIds)));
+        } else {
+            snapshot = snapshot.apply(upserts, removedIds);
+        }
+    }
+
+    private static int indexAfter(List<BeerDto> beers, int id) {
+        int low = 0;
+        int high = beers.size();
+
+        while (low < high) {
+            final var middle = (low + high) >>> 1;
+
+            if (beers.get(middle).getId() <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private static final class Change {
+        final List<BeerDto> upserts;
+        final List<Integer> removedIds;
+
+        Change(List<BeerDto> upserts, List<Integer> removedIds) {
+            this.upserts = upserts;
+            this.removedIds = removedIds;
+        }
+    }
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), List.of(), Map.of(), Map.of(), Set.of());
+
+        final Map<Integer, BeerDto> byId;
+        final Map<String, BeerDto> byUpc;
+        final List<BeerDto> all;
+        final Map<String, List<BeerDto>> byStyle;
+        final Map<String, List<BeerDto>> byName;
+        final Set<Integer> removedIds;
+
+        Snapshot(Map<Integer, BeerDto> byId, Map<String, BeerDto> byUpc, List<BeerDto> all,
+                 Map<String, List<BeerDto>> byStyle, Map<String, List<BeerDto>> byName, Set<Integer> removedIds) {
+            this.byId = byId;
+            this.byUpc = byUpc;
+            this.all = all;
+            this.byStyle = byStyle;
+            this.byName = byName;
+            this.removedIds = removedIds;
+        }
+
+        Snapshot apply(Collection<BeerDto> upserts, Collection<Integer> removedIds) {
+            final Set<Integer> newRemovedIds;
+
+            if (removedIds.isEmpty()) {
+                newRemovedIds = this.removedIds;
+            } else {
+                newRemovedIds = new HashSet<>(this.removedIds);
+                newRemovedIds.addAll(removedIds);
+            }
+
+            // writers read their beers back concurrently and may publish out of order, so of all the copies of a
+            // beer the one with the highest version wins; without versions the last upsert does
+            final var latest = new LinkedHashMap<Integer, BeerDto>();
+            upserts.forEach(beer -> {
+                if (newRemovedIds.contains(beer.getId())) {
+                    return;
+                }
+
+                final var newer = latest.getOrDefault(beer.getId(), byId.get(beer.getId()));
+
+                if (newer == null || !isNewer(newer, beer)) {
+                    latest.put(beer.getId(), beer);
+                }
+            });
+
+            final var added = new ArrayList<>(latest.values());
+            added.sort(BY_ID);
+
+            final Set<Integer> changedIds = new HashSet<>(removedIds);
+            changedIds.addAll(latest.keySet());
+
+            final var previous = changedIds.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+
+            final var newById = new HashMap<>(byId);
+            final var newByUpc = new HashMap<>(byUpc);
+
+            previous.forEach(beer -> {
+                newById.remove(beer.getId());
+                if (beer.getUpc() != null) {
+                    newByUpc.remove(beer.getUpc(), beer);
+                }
+            });
+            added.forEach(beer -> {
+                newById.put(beer.getId(), beer);
+                if (beer.getUpc() != null) {
+                    newByUpc.put(beer.getUpc(), beer);
+                }
+            });
+
+            return new Snapshot(newById, newByUpc, merge(all, changedIds, added),
+                    mergeGroups(byStyle, BeerDto::getBeerStyle, previous, changedIds, added),
+                    mergeGroups(byName, BeerDto::getBeerName, previous, changedIds, added),
+                    newRemovedIds);
+        }
+
+        private static boolean isNewer(BeerDto beer, BeerDto than) {
+            return beer.getVersion() != null && than.getVersion() != null && beer.getVersion() > than.getVersion();
+        }
+
+        private static Map<String, List<BeerDto>> mergeGroups(Map<String, List<BeerDto>> groups, Function<BeerDto, String> key,
+                                                              List<BeerDto> previous, Set<Integer> changedIds, List<BeerDto> added) {
+            final var addedByKey = added.stream()
+                    .filter(beer -> key.apply(beer) != null)
+                    .collect(Collectors.groupingBy(key));
+            final var affectedKeys = new HashSet<>(addedByKey.keySet());
+            previous.stream().map(key).filter(Objects::nonNull).forEach(affectedKeys::add);
+
+            final var merged = new HashMap<>(groups);
+
+            for (String affectedKey : affectedKeys) {
+                final var group = merge(groups.getOrDefault(affectedKey, List.of()), changedIds,
+                        addedByKey.getOrDefault(affectedKey, List.of()));
+
+                if (group.isEmpty()) {
+                    merged.remove(affectedKey);
+                } else {
+                    merged.put(affectedKey, group);
+                }
+            }
+
+            return merged;
+        }
+
+        /**
+         * Drops the changed ids from a list in id order and merges in the added beers, also in id order.
+         */
+        private static List<BeerDto> merge(List<BeerDto> beers, Set<Integer> changedIds, List<BeerDto> added) {
+            final var merged = new ArrayList<BeerDto>(beers.size() + added.size());
+            int next = 0;
+
+            for (BeerDto beer : beers) {
+                if (changedIds.contains(beer.getId())) {
+                    continue;
+                }
+                while (next < added.size() && added.get(next).getId() < beer.getId()) {
+                    merged.add(added.get(next++));
+                }
+                merged.add(beer);
+            }
+
+            while (next < added.size()) {
+                merged.add(added.get(next++));
+            }
+
+            return Collections.unmodifiableList(merged);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.BeerCatalog;
+import guru.springframework.sfgrestbrewery.repositories.BeerCatalogRepository;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The version of the catalog that list pages are tagged with. It is kept in the database, so all instances tag
+ * the same catalog alike. A write on this instance is seen here as soon as it has bumped the version; writes on
+ * other instances are seen with the next refresh, at most refreshInterval later.
+ */
+@Slf4j
+public class BeerCatalogVersion {
+
+    private final BeerCatalogRepository beerCatalogRepository;
+    private final Duration refreshInterval;
+    private final AtomicReference<BeerCatalog> current = new AtomicReference<>();
+
+    private Disposable refresher;
+
+    public BeerCatalogVersion(BeerCatalogRepository beerCatalogRepository, Duration refreshInterval) {
+        this.beerCatalogRepository = beerCatalogRepository;
+        this.refreshInterval = refreshInterval;
+    }
+
+    public void start() {
+        refresher = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh().onErrorResume(e -> {
+                    log.warn("Refreshing the catalog version failed", e);
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * Bumps the version after a write. A failure is only logged, the write itself has succeeded.
+     */
+    public Mono<Void> changed() {
+        return beerCatalogRepository.bumpVersion()
+                .then(refresh())
+                .onErrorResume(e -> {
+                    log.warn("Bumping the catalog version failed", e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Returns null until the version has been read.
+     */
+    public String current() {
+        final var catalog = current.get();
+        return catalog != null ? catalog.getEpoch() + "-" + catalog.getVersion() : null;
+    }
+
+    private Mono<Void> refresh() {
+        // a refresh that read before a bump must not take this instance back to the older version
+        return beerCatalogRepository.find()
+                .doOnNext(read -> current.accumulateAndGet(read, (known, latest) -> known == null
+                        || !known.getEpoch().equals(latest.getEpoch())
+                        || latest.getVersion() > known.getVersion() ? latest : known))
+                .then();
+    }
+}
@@ -0,0 +1,26 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import lombok.Value;
+import org.springframework.util.StringUtils;
+
+/**
+ * Name/style filter of a beer listing. A null beerName or beerStyle means the listing is not filtered on it.
+ */
+@Value
+public class BeerFilter {
+
+    String beerName;
+    BeerStyleEnum beerStyle;
+
+    public static BeerFilter of(String beerName, BeerStyleEnum beerStyle) {
+        return new BeerFilter(StringUtils.hasLength(beerName) ? beerName : null, beerStyle);
+    }
+
+    /**
+     * True if a beer with the given name and style is included by this filter.
+     */
+    public boolean matches(String name, BeerStyleEnum style) {
+        return (beerName == null || beerName.equals(name)) && (beerStyle == null || beerStyle == style);
+    }
+}
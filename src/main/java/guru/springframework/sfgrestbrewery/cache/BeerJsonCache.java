@@ -0,0 +1,65 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import guru.springframework.sfgrestbrewery.web.controller.BeerETags;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import lombok.Value;
+import org.springframework.util.DigestUtils;
+
+/**
+ * The JSON of single beers as last written to a client, with their strong ETag, keyed by beer id.
+ * An entry is only served for a beer equal to the one it was rendered from: a write replaces the BeerDto the
+ * service returns, so it invalidates the entry without this cache having to be told.
+ */
+public class BeerJsonCache {
+
+    private final Cache<Integer, RenderedBeer> cache;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public BeerJsonCache(Cache<Integer, RenderedBeer> cache, ObjectMapper objectMapper, boolean enabled) {
+        this.cache = cache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached rendering of the beer, rendering and caching it if there is none for this state of it.
+     */
+    public RenderedBeer render(BeerDto beer) {
+        final var cached = cache.getIfPresent(beer.getId());
+
+        if (cached != null && (cached.getBeer() == beer || cached.getBeer().equals(beer))) {
+            return cached;
+        }
+
+        final var rendered = renderNow(beer);
+        cache.put(beer.getId(), rendered);
+        return rendered;
+    }
+
+    private RenderedBeer renderNow(BeerDto beer) {
+        try {
+            final var json = objectMapper.writeValueAsBytes(beer);
+            final var etag = BeerETags.forBeer(beer);
+
+            // a beer without a version is tagged by its content instead
+            return new RenderedBeer(beer, json, etag != null ? etag : "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render beer " + beer.getId(), e);
+        }
+    }
+
+    @Value
+    public static class RenderedBeer {
+        BeerDto beer;
+        byte[] json;
+        String etag;
+    }
+}
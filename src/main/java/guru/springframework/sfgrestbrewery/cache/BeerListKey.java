@@ -0,0 +1,27 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import lombok.Value;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Key of a cached listBeers page.
+ */
+@Value
+public class BeerListKey {
+
+    BeerFilter filter;
+    int pageNumber;
+    int pageSize;
+
+    public static BeerListKey of(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest) {
+        return new BeerListKey(BeerFilter.of(beerName, beerStyle), pageRequest.getPageNumber(), pageRequest.getPageSize());
+    }
+
+    /**
+     * True if a beer with the given name and style could appear on this page.
+     */
+    public boolean matches(String name, BeerStyleEnum style) {
+        return filter.matches(name, style);
+    }
+}
@@ -0,0 +1,112 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import reactor.core.publisher.Mono;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Value cache for reactive lookups. Unlike Spring's @Cacheable, which would store the cold Mono,
+ * this stores the resolved value and serves hits without subscribing to the loader at all.
+ *
+ * A load that a write overtook does not store its (possibly stale) result. Writes only stop the
+ * loads they concern: those of the keys written, or whose value matches a value predicate.
+ */
+public class ReactiveCache<K, V> {
+
+    private final String name;
+    private final Cache<K, V> cache;
+    private final Set<Load<K, V>> loads = ConcurrentHashMap.newKeySet();
+
+    public ReactiveCache(String name, Cache<K, V> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            final var cached = cache.getIfPresent(key);
+
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            final var load = new Load<K, V>(key);
+            loads.add(load);
+
+            return loader.apply(key)
+                    .doOnNext(value -> cache.asMap().compute(key, (k, current) -> load.isCurrent(value) ? value : current))
+                    .doFinally(signal -> loads.remove(load));
+        });
+    }
+
+    public V getIfPresent(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(K key, V value) {
+        overtakeLoads(key::equals);
+        cache.put(key, value);
+    }
+
+    public void evict(K key) {
+        overtakeLoads(key::equals);
+        cache.invalidate(key);
+    }
+
+    public void evictIf(Predicate<K> predicate) {
+        overtakeLoads(predicate);
+        cache.asMap().keySet().removeIf(predicate);
+    }
+
+    public void evictValuesIf(Predicate<V> predicate) {
+        // the value of a load in flight is not known yet, it is checked once it arrives
+        loads.forEach(load -> load.evictedValues.add(predicate));
+        cache.asMap().values().removeIf(predicate);
+    }
+
+    public void invalidateAll() {
+        overtakeLoads(key -> true);
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Cache<K, V> getNativeCache() {
+        return cache;
+    }
+
+    private void overtakeLoads(Predicate<K> keys) {
+        loads.forEach(load -> {
+            if (keys.test(load.key)) {
+                load.overtaken = true;
+            }
+        });
+    }
+
+    private static final class Load<K, V> {
+        final K key;
+        final Queue<Predicate<V>> evictedValues = new ConcurrentLinkedQueue<>();
+        volatile boolean overtaken;
+
+        Load(K key) {
+            this.key = key;
+        }
+
+        boolean isCurrent(V value) {
+            return !overtaken && evictedValues.stream().noneMatch(predicate -> predicate.test(value));
+        }
+    }
+}
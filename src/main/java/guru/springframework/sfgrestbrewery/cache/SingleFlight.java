@@ -0,0 +1,73 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller issues the query, everyone arriving
+ * while it is in flight subscribes to the same result. The entry is dropped once the query terminates.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter issued;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.issued = Counter.builder("beer.singleflight.queries")
+                .tag("name", name)
+                .tag("result", "issued")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("beer.singleflight.queries")
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    public Mono<V> execute(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            final var created = new AtomicBoolean();
+            final var flight = inFlight.computeIfAbsent(key, k -> {
+                created.set(true);
+                return newFlight(k, loader);
+            });
+
+            (created.get() ? issued : coalesced).increment();
+
+            return flight;
+        });
+    }
+
+    /**
+     * Detaches the in-flight load for a key so later callers issue a fresh query, e.g. after a write.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public double issuedCount() {
+        return issued.count();
+    }
+
+    public double coalescedCount() {
+        return coalesced.count();
+    }
+
+    private Mono<V> newFlight(K key, Function<K, Mono<V>> loader) {
+        final var flight = new AtomicReference<Mono<V>>();
+
+        flight.set(loader.apply(key)
+                .doFinally(signal -> inFlight.remove(key, flight.get()))
+                .cache());
+
+        return flight.get();
+    }
+}
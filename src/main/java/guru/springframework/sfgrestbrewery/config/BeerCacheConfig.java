@@ -0,0 +1,102 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogReplica;
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogVersion;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.cache.BeerJsonCache;
+import guru.springframework.sfgrestbrewery.cache.BeerListKey;
+import guru.springframework.sfgrestbrewery.cache.ReactiveCache;
+import guru.springframework.sfgrestbrewery.cache.SingleFlight;
+import guru.springframework.sfgrestbrewery.repositories.BeerCatalogRepository;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+@EnableConfigurationProperties(BeerCacheProperties.class)
+public class BeerCacheConfig {
+
+    public static final String BEER_CACHE = "beerCache";
+    public static final String BEER_UPC_CACHE = "beerUpcCache";
+    public static final String BEER_LIST_CACHE = "beerListCache";
+    public static final String BEER_COUNT_CACHE = "beerCountCache";
+    public static final String BEER_JSON_CACHE = "beerJsonCache";
+
+    @Bean
+    public ReactiveCache<Integer, BeerDto> beerCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        return buildCache(BEER_CACHE, properties.getBeer(), meterRegistry);
+    }
+
+    @Bean
+    public ReactiveCache<String, BeerDto> beerUpcCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        return buildCache(BEER_UPC_CACHE, properties.getBeerUpc(), meterRegistry);
+    }
+
+    @Bean
+    public ReactiveCache<BeerListKey, BeerPagedList> beerListCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        return buildCache(BEER_LIST_CACHE, properties.getBeerList(), meterRegistry);
+    }
+
+    @Bean
+    public ReactiveCache<BeerFilter, Long> beerCountCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        return buildCache(BEER_COUNT_CACHE, properties.getBeerCount(), meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<Integer, BeerDto> beerByIdFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(BEER_CACHE, meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<String, BeerDto> beerByUpcFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(BEER_UPC_CACHE, meterRegistry);
+    }
+
+    @Bean
+    public BeerCatalogReplica beerCatalogReplica(BeerCacheProperties properties) {
+        return new BeerCatalogReplica(properties.getReplica().isEnabled());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @DependsOn("initializer")
+    public BeerCatalogVersion beerCatalogVersion(BeerCacheProperties properties, BeerCatalogRepository beerCatalogRepository) {
+        return new BeerCatalogVersion(beerCatalogRepository, properties.getCatalogVersionRefresh());
+    }
+
+    @Bean
+    public BeerJsonCache beerJsonCache(BeerCacheProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        final var spec = properties.getBeerJson();
+
+        return new BeerJsonCache(buildCaffeine(BEER_JSON_CACHE, spec, meterRegistry), objectMapper, spec.getMaximumSize() > 0);
+    }
+
+    private <K, V> ReactiveCache<K, V> buildCache(String name, BeerCacheProperties.CacheSpec spec, MeterRegistry meterRegistry) {
+        return new ReactiveCache<>(name, buildCaffeine(name, spec, meterRegistry));
+    }
+
+    private <K, V> Cache<K, V> buildCaffeine(String name, BeerCacheProperties.CacheSpec spec, MeterRegistry meterRegistry) {
+        final var builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getExpireAfterWrite())
+                .recordStats();
+
+        if (spec.getMaximumSize() == 0) {
+            // evict on the writing thread, otherwise a "disabled" cache still serves hits until maintenance runs
+            builder.executor(Runnable::run);
+        }
+
+        final var cache = builder.<K, V>build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+
+        return cache;
+    }
+}
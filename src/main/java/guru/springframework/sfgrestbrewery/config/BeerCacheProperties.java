@@ -0,0 +1,40 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the in-process beer caches. A maximum size of 0 effectively disables a cache; for beerJson, the
+ * serialized responses of v2 single beer lookups, it switches back to serializing every response.
+ * With replica enabled, reads without the quantity on hand are served from an in-memory copy of the whole catalog instead.
+ * List pages are tagged with the catalog version in the database, which each instance reads every catalogVersionRefresh.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.cache")
+public class BeerCacheProperties {
+
+    private CacheSpec beer = new CacheSpec();
+    private CacheSpec beerUpc = new CacheSpec();
+    private CacheSpec beerList = new CacheSpec(1_000, Duration.ofMinutes(1));
+    private CacheSpec beerCount = new CacheSpec(1_000, Duration.ofMinutes(1));
+    private CacheSpec beerJson = new CacheSpec();
+    private Replica replica = new Replica();
+    private Duration catalogVersionRefresh = Duration.ofSeconds(1);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSpec {
+        private long maximumSize = 10_000;
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Replica {
+        private boolean enabled = false;
+    }
+}
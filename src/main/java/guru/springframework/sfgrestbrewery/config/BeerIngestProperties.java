@@ -0,0 +1,15 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Chunking of bulk beer ingests: rows per batched INSERT and rows per transaction.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.ingest")
+public class BeerIngestProperties {
+
+    private int batchSize = 500;
+    private int transactionSize = 5_000;
+}
@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Beers whose reservations go through an in-memory striped counter instead of one UPDATE per reservation.
+ * Empty by default; every reservation then goes straight to the database.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.inventory")
+public class BeerInventoryProperties {
+
+    private List<Integer> hotBeerIds = new ArrayList<>();
+    private int stripes = Runtime.getRuntime().availableProcessors();
+    private int leaseSize = 16;
+    private Duration flushInterval = Duration.ofSeconds(1);
+}
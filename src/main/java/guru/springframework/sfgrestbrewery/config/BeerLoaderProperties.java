@@ -0,0 +1,14 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bootstrap data. syntheticBeers generated beers are loaded on top of the fixed seed catalog, for load testing.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.loader")
+public class BeerLoaderProperties {
+
+    private int syntheticBeers = 0;
+}
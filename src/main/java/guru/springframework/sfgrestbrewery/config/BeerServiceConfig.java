@@ -0,0 +1,13 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the beer services and of the loader that seeds them at startup.
+ */
+@Configuration
+@EnableConfigurationProperties({BeerIngestProperties.class, BeerLoaderProperties.class, BeerStockProperties.class,
+        BeerInventoryProperties.class})
+public class BeerServiceConfig {
+}
@@ -0,0 +1,19 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Batching of bulk stock updates: a batch is applied when it holds batchSize records or batchWindow has passed.
+ * Batches closed while one is being applied wait their turn; more than maxPendingBatches fail the request.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.stock")
+public class BeerStockProperties {
+
+    private int batchSize = 1_000;
+    private Duration batchWindow = Duration.ofSeconds(1);
+    private int maxPendingBatches = 16;
+}
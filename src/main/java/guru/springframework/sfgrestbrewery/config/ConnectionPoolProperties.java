@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * r2dbc-pool settings for the application ConnectionFactory. A blank validationQuery validates connections
+ * with the driver's local check instead of a round trip.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.r2dbc.pool")
+public class ConnectionPoolProperties {
+
+    private int initialSize = 4;
+    private int maxSize = 16;
+    private Duration maxIdleTime = Duration.ofMinutes(30);
+    private Duration maxAcquireTime = Duration.ofSeconds(5);
+    private Duration maxCreateConnectionTime = Duration.ofSeconds(5);
+    private String validationQuery;
+}
@@ -0,0 +1,66 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties({DatabaseProperties.class, ConnectionPoolProperties.class})
+public class DatabaseConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(DatabaseProperties databaseProperties, ConnectionPoolProperties poolProperties) {
+        final var options = ConnectionFactoryOptions.parse(databaseProperties.getUrl()).mutate();
+
+        if (StringUtils.hasText(databaseProperties.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, databaseProperties.getUsername());
+        }
+        if (StringUtils.hasText(databaseProperties.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, databaseProperties.getPassword());
+        }
+
+        final var connectionFactory = ConnectionFactories.get(options.build());
+
+        // pooled connections skip the per-query connection setup; actuator binds r2dbc.pool.* metrics to the pool
+        final var pool = ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("beer")
+                .initialSize(poolProperties.getInitialSize())
+                .maxSize(poolProperties.getMaxSize())
+                .maxIdleTime(poolProperties.getMaxIdleTime())
+                .maxAcquireTime(poolProperties.getMaxAcquireTime())
+                .maxCreateConnectionTime(poolProperties.getMaxCreateConnectionTime());
+
+        if (StringUtils.hasText(poolProperties.getValidationQuery())) {
+            pool.validationQuery(poolProperties.getValidationQuery());
+        }
+
+        return new ConnectionPool(pool.build());
+    }
+
+    @Bean
+    ConnectionFactoryInitializer initializer(ConnectionFactory connectionFactory, DatabaseProperties databaseProperties,
+                                             ResourceLoader resourceLoader) {
+        final var platform = StringUtils.hasText(databaseProperties.getPlatform())
+                ? databaseProperties.getPlatform() : connectionFactory.getMetadata().getName();
+        final var schema = "classpath:/schema-" + platform.toLowerCase(Locale.ROOT) + ".sql";
+        log.debug("Initializing {} database with {}", platform, schema);
+
+        final var initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(resourceLoader.getResource(schema)));
+        return initializer;
+    }
+}
@@ -0,0 +1,19 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Database the application connects to, as an R2DBC URL resolved through the drivers on the classpath
+ * (H2 and PostgreSQL). The schema script is picked by platform, schema-h2.sql or schema-postgresql.sql;
+ * a blank platform is taken from the driver.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.database")
+public class DatabaseProperties {
+
+    private String url = "r2dbc:h2:mem:///testdb?options=DB_CLOSE_DELAY=-1";
+    private String username = "sa";
+    private String password;
+    private String platform;
+}
@@ -0,0 +1,53 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import guru.springframework.sfgrestbrewery.metrics.OperationTimer;
+import guru.springframework.sfgrestbrewery.metrics.RepositoryMetricsPostProcessor;
+import guru.springframework.sfgrestbrewery.metrics.SlowOperationLog;
+import guru.springframework.sfgrestbrewery.metrics.SlowRequestWebFilter;
+import guru.springframework.sfgrestbrewery.tracing.Tracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Timers around the service and repository layers. Together with the http.server.requests timer Boot records
+ * per endpoint they split a request into database, service (caching and mapping) and web (serialization) time.
+ * Requests, service calls and queries over the slow log thresholds are logged as well.
+ */
+@Configuration
+@EnableConfigurationProperties(SlowLogProperties.class)
+public class MetricsConfig {
+
+    public static final String BEER_SERVICE_TIMER = "beer.service";
+
+    @Bean
+    public OperationTimer beerServiceTimer(MeterRegistry meterRegistry, SlowLogProperties slowLogProperties, Tracer tracer) {
+        return new OperationTimer(BEER_SERVICE_TIMER, meterRegistry,
+                new SlowOperationLog("service", slowLogProperties.getServiceThreshold(), slowLogProperties.getSampleRate()),
+                tracer);
+    }
+
+    @Bean
+    public static RepositoryMetricsPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                                ObjectProvider<SlowLogProperties> slowLogProperties,
+                                                                                ObjectProvider<Tracer> tracer) {
+        return new RepositoryMetricsPostProcessor(meterRegistry, slowLogProperties, tracer);
+    }
+
+    @Bean
+    public SlowRequestWebFilter slowRequestWebFilter(SlowLogProperties slowLogProperties) {
+        return new SlowRequestWebFilter(
+                new SlowOperationLog("request", slowLogProperties.getRequestThreshold(), slowLogProperties.getSampleRate()));
+    }
+
+    @PostConstruct
+    void enableSchedulerMetrics() {
+        // executor metrics of the Reactor schedulers, published to the global registry Boot's registry is part of
+        Schedulers.enableMetrics();
+    }
+}
@@ -0,0 +1,20 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Thresholds of the slow operation log for http requests, service calls and repository queries. A zero threshold
+ * turns that part of the log off. Of the operations over a threshold, sampleRate (0 to 1) is the share logged.
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.slow-log")
+public class SlowLogProperties {
+
+    private Duration requestThreshold = Duration.ofMillis(500);
+    private Duration serviceThreshold = Duration.ofMillis(250);
+    private Duration queryThreshold = Duration.ofMillis(100);
+    private double sampleRate = 1.0;
+}
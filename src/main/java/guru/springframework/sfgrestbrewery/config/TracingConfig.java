@@ -0,0 +1,32 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import guru.springframework.sfgrestbrewery.tracing.LoggingSpanExporter;
+import guru.springframework.sfgrestbrewery.tracing.SpanExporter;
+import guru.springframework.sfgrestbrewery.tracing.Tracer;
+import guru.springframework.sfgrestbrewery.tracing.TracingWebFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spans for http requests, v2 handlers, service calls and repository queries, linked through the Reactor Context.
+ * Spans are logged unless another SpanExporter bean is defined.
+ */
+@Configuration
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+
+    // an ObjectProvider rather than @ConditionalOnMissingBean, which depends on configuration order outside auto-configuration
+    @Bean
+    public Tracer tracer(TracingProperties properties, ObjectProvider<SpanExporter> spanExporter) {
+        return properties.isEnabled()
+                ? new Tracer(spanExporter.getIfAvailable(LoggingSpanExporter::new), properties.getSampleRate())
+                : Tracer.NOOP;
+    }
+
+    @Bean
+    public TracingWebFilter tracingWebFilter(Tracer tracer) {
+        return new TracingWebFilter(tracer);
+    }
+}
@@ -0,0 +1,16 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tracing of http requests through the handler, service and repository layers. A request is traced when its
+ * traceparent header is sampled or, without one, at sampleRate (0 to 1).
+ */
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.tracing")
+public class TracingProperties {
+
+    private boolean enabled = true;
+    private double sampleRate = 0;
+}
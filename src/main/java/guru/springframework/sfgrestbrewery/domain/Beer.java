@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
@@ -18,7 +19,7 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 // @Entity
 public class Beer {
 
@@ -30,7 +31,7 @@ public class Beer {
     @Id
     private Integer id;
 
-    //    @Version
+    @Version
     private Long version;
 
     private String beerName;
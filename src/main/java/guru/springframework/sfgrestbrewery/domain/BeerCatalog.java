@@ -0,0 +1,14 @@
+package guru.springframework.sfgrestbrewery.domain;
+
+import lombok.Value;
+
+/**
+ * The version of the beer catalog as a whole, bumped by every write that can change a list of beers. The epoch
+ * is chosen when the row is created, so a recreated database does not repeat the versions of the last one.
+ */
+@Value
+public class BeerCatalog {
+
+    String epoch;
+    long version;
+}
@@ -0,0 +1,161 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory stock of one hot beer, spread over stripes so concurrent reservations do not contend on a
+ * single row or counter. Stock is leased from the database in chunks with the same atomic decrement used
+ * for ordinary reservations, so every unit held here has already been taken off quantity_on_hand and
+ * nothing can be oversold. Unused stock is handed back by {@link #flush()}.
+ */
+public class StripedStockCounter {
+
+    private final AtomicInteger[] stripes;
+    private final int leaseSize;
+    private final IntFunction<Mono<Boolean>> take;
+    private final IntFunction<Mono<Void>> giveBack;
+
+    /**
+     * @param take     atomically removes the given quantity from the database, emitting false if there is not enough
+     * @param giveBack adds the given quantity back to the database
+     */
+    public StripedStockCounter(int stripes, int leaseSize, IntFunction<Mono<Boolean>> take, IntFunction<Mono<Void>> giveBack) {
+        this.stripes = new AtomicInteger[stripes];
+        this.leaseSize = leaseSize;
+        this.take = take;
+        this.giveBack = giveBack;
+
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new AtomicInteger();
+        }
+    }
+
+    public Mono<Boolean> reserve(int quantity) {
+        return Mono.defer(() -> {
+            final var stripe = stripe();
+
+            if (tryTake(stripe, quantity)) {
+                return Mono.just(true);
+            }
+
+            // lease this reservation plus a chunk for the ones after it; near the end of the stock fall back
+            // to gathering whatever the other stripes hold
+            final var leasing = take.apply(quantity + leaseSize).cache();
+            final var settled = new AtomicBoolean();
+
+            return leasing.flatMap(leased -> {
+                if (!settled.compareAndSet(false, true)) {
+                    return Mono.empty();
+                }
+                if (leased) {
+                    stripe.addAndGet(leaseSize);
+                    return Mono.just(true);
+                }
+                return reserveFromAllStripes(stripe, quantity);
+            }).doOnCancel(() -> leasing.subscribe(leased -> {
+                // a take cancelled in flight may still commit, and then nobody holds what it took
+                if (leased && settled.compareAndSet(false, true)) {
+                    stripe.addAndGet(quantity + leaseSize);
+                }
+            }, e -> { }));
+        });
+    }
+
+    public void release(int quantity) {
+        stripe().addAndGet(quantity);
+    }
+
+    /**
+     * Hands all stock held in memory back to the database.
+     */
+    public Mono<Void> flush() {
+        return Mono.defer(() -> {
+            final var held = drain();
+
+            if (held == 0) {
+                return Mono.empty();
+            }
+
+            // the stock is only gone from memory once it is back in the database; a cancelled flush still runs
+            // to the end so that the outcome is known
+            final var givingBack = giveBack.apply(held)
+                    .doOnError(e -> stripe().addAndGet(held))
+                    .cache();
+
+            return givingBack.doOnCancel(() -> givingBack.subscribe(null, e -> { }));
+        });
+    }
+
+    public int held() {
+        var held = 0;
+        for (AtomicInteger stripe : stripes) {
+            held += stripe.get();
+        }
+        return held;
+    }
+
+    private Mono<Boolean> reserveFromAllStripes(AtomicInteger stripe, int quantity) {
+        final var drained = drain();
+
+        if (drained >= quantity) {
+            stripe.addAndGet(drained - quantity);
+            return Mono.just(true);
+        }
+
+        // the drained units go back unless the take succeeds, and a take cancelled in flight is still settled
+        final var taking = take.apply(quantity - drained).cache();
+        final var settled = new AtomicBoolean();
+
+        return taking.flatMap(taken -> {
+            if (!settled.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            if (!taken) {
+                stripe.addAndGet(drained);
+            }
+            return Mono.just(taken);
+        }).doOnError(e -> {
+            if (settled.compareAndSet(false, true)) {
+                stripe.addAndGet(drained);
+            }
+        }).doOnCancel(() -> taking.subscribe(taken -> {
+            if (settled.compareAndSet(false, true)) {
+                stripe.addAndGet(taken ? quantity : drained);
+            }
+        }, e -> {
+            if (settled.compareAndSet(false, true)) {
+                stripe.addAndGet(drained);
+            }
+        }));
+    }
+
+    private int drain() {
+        var drained = 0;
+        for (AtomicInteger stripe : stripes) {
+            drained += stripe.getAndSet(0);
+        }
+        return drained;
+    }
+
+    private AtomicInteger stripe() {
+        return stripes[ThreadLocalRandom.current().nextInt(stripes.length)];
+    }
+
+    private static boolean tryTake(AtomicInteger stripe, int quantity) {
+        var available = stripe.get();
+
+        while (available >= quantity) {
+            if (stripe.compareAndSet(available, available - quantity)) {
+                return true;
+            }
+            available = stripe.get();
+        }
+
+        return false;
+    }
+}
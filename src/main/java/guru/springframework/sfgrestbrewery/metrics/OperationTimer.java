@@ -0,0 +1,109 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import guru.springframework.sfgrestbrewery.tracing.Span;
+import guru.springframework.sfgrestbrewery.tracing.Tracer;
+import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Times reactive operations from subscription to termination, so the timer covers the query and not just
+ * the assembly of the pipeline. Each timing is tagged with the outcome on top of the caller's tags, and timings
+ * over the slow log's threshold are also logged with those tags. Inside a sampled trace each operation is a span
+ * too, and the parent of the spans of the operations it runs.
+ */
+public class OperationTimer {
+
+    public static final String FOUND = "found";
+    public static final String NOT_FOUND = "not_found";
+    public static final String SUCCESS = "success";
+    public static final String CONFLICT = "conflict";
+    public static final String ERROR = "error";
+    public static final String CANCELLED = "cancelled";
+
+    private final String name;
+    private final MeterRegistry meterRegistry;
+    private final SlowOperationLog slowLog;
+    private final Tracer tracer;
+
+    public OperationTimer(String name, MeterRegistry meterRegistry) {
+        this(name, meterRegistry, SlowOperationLog.DISABLED, Tracer.NOOP);
+    }
+
+    public OperationTimer(String name, MeterRegistry meterRegistry, SlowOperationLog slowLog, Tracer tracer) {
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        this.slowLog = slowLog;
+        this.tracer = tracer;
+    }
+
+    /**
+     * Times a read: a value is found, completing empty is not_found. Tags are taken when the read terminates,
+     * so they can say how it was answered.
+     */
+    public <T> Mono<T> lookup(Supplier<Tags> tags, Mono<T> mono) {
+        return time(tags, mono, value -> value != null ? FOUND : NOT_FOUND);
+    }
+
+    /**
+     * Times a write or any other operation where completing, with or without a value, is a success.
+     */
+    public <T> Mono<T> command(Tags tags, Mono<T> mono) {
+        return time(() -> tags, mono, value -> SUCCESS);
+    }
+
+    public <T> Flux<T> stream(Tags tags, Flux<T> flux) {
+        return Flux.deferContextual(context -> {
+            final var sample = Timer.start(meterRegistry);
+            final var span = tracer.startChild(context, name);
+
+            final var timed = flux.doOnComplete(() -> stop(sample, span, tags, SUCCESS))
+                    .doOnError(e -> stop(sample, span, tags, outcome(e)))
+                    .doOnCancel(() -> stop(sample, span, tags, CANCELLED));
+
+            return span != null ? timed.contextWrite(Tracer.with(span)) : timed;
+        });
+    }
+
+    private <T> Mono<T> time(Supplier<Tags> tags, Mono<T> mono, Function<T, String> outcome) {
+        return Mono.deferContextual(context -> {
+            final var sample = Timer.start(meterRegistry);
+            final var span = tracer.startChild(context, name);
+
+            final var timed = mono.doOnSuccess(value -> stop(sample, span, tags.get(), outcome.apply(value)))
+                    .doOnError(e -> stop(sample, span, tags.get(), outcome(e)))
+                    .doOnCancel(() -> stop(sample, span, tags.get(), CANCELLED));
+
+            return span != null ? timed.contextWrite(Tracer.with(span)) : timed;
+        });
+    }
+
+    private void stop(Timer.Sample sample, Span span, Tags tags, String outcome) {
+        final var nanos = sample.stop(Timer.builder(name).tags(tags).tag("outcome", outcome).register(meterRegistry));
+
+        if (slowLog.isSlow(nanos)) {
+            slowLog.record(tags.and("outcome", outcome), nanos);
+        }
+        if (span != null) {
+            tracer.end(span, tags.and("outcome", outcome));
+        }
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof NotFoundException) {
+            return NOT_FOUND;
+        }
+        if (e instanceof OptimisticLockingFailureException || e instanceof DataIntegrityViolationException) {
+            return CONFLICT;
+        }
+        return ERROR;
+    }
+}
@@ -0,0 +1,99 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import guru.springframework.sfgrestbrewery.config.SlowLogProperties;
+import guru.springframework.sfgrestbrewery.tracing.Tracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times every reactive method of the beer repositories, Spring Data ones and plain @Repository classes alike,
+ * as beer.repository tagged with the repository bean and method. With nothing but the query and the connection
+ * acquisition inside, these timings separate database time from the rest of a service call. Queries over the
+ * query threshold go to the slow log, and inside a sampled trace every query is a span.
+ */
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    public static final String BEER_REPOSITORY_TIMER = "beer.repository";
+
+    private static final String REPOSITORY_PACKAGE = "guru.springframework.sfgrestbrewery.repositories";
+
+    // resolved on first use: a post processor that pulled in the registry eagerly would keep it from being configured
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<SlowLogProperties> slowLogProperties;
+    private final ObjectProvider<Tracer> tracer;
+    private volatile OperationTimer timer;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                          ObjectProvider<SlowLogProperties> slowLogProperties,
+                                          ObjectProvider<Tracer> tracer) {
+        this.meterRegistry = meterRegistry;
+        this.slowLogProperties = slowLogProperties;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!isBeerRepository(bean)) {
+            return bean;
+        }
+
+        final MethodInterceptor interceptor = invocation -> {
+            final var result = invocation.proceed();
+            final var tags = Tags.of("repository", beanName, "method", invocation.getMethod().getName());
+
+            if (result instanceof Mono) {
+                return timer().command(tags, (Mono<?>) result);
+            }
+            if (result instanceof Flux) {
+                return timer().stream(tags, (Flux<?>) result);
+            }
+            return result;
+        };
+
+        if (bean instanceof Advised) {
+            // Spring Data repositories are proxies already
+            ((Advised) bean).addAdvice(0, interceptor);
+            return bean;
+        }
+
+        final var proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy();
+    }
+
+    private static boolean isBeerRepository(Object bean) {
+        final var userClass = ClassUtils.getUserClass(bean);
+
+        if (bean instanceof Advised) {
+            for (Class<?> proxiedInterface : ((Advised) bean).getProxiedInterfaces()) {
+                if (proxiedInterface.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                    return true;
+                }
+            }
+        }
+
+        return userClass.getPackageName().equals(REPOSITORY_PACKAGE) && AnnotatedElementUtils.hasAnnotation(userClass, Repository.class);
+    }
+
+    private OperationTimer timer() {
+        if (timer == null) {
+            final var properties = slowLogProperties.getObject();
+
+            timer = new OperationTimer(BEER_REPOSITORY_TIMER, meterRegistry.getObject(),
+                    new SlowOperationLog("query", properties.getQueryThreshold(), properties.getSampleRate()),
+                    tracer.getIfAvailable(() -> Tracer.NOOP));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,67 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a sample of the operations that took longer than a threshold, one key=value line each, to the slowlog
+ * logger. Operations under the threshold cost a comparison, so this can stay on where per-call logging cannot.
+ */
+@Slf4j(topic = SlowOperationLog.LOGGER)
+public class SlowOperationLog {
+
+    public static final String LOGGER = "guru.springframework.sfgrestbrewery.slowlog";
+
+    public static final SlowOperationLog DISABLED = new SlowOperationLog("none", Duration.ZERO, 0);
+
+    private final String kind;
+    private final long thresholdNanos;
+    private final double sampleRate;
+
+    public SlowOperationLog(String kind, Duration threshold, double sampleRate) {
+        this.kind = kind;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isSlow(long nanos) {
+        return thresholdNanos > 0 && sampleRate > 0 && nanos >= thresholdNanos;
+    }
+
+    /**
+     * Logs the operation if it was slow and falls in the sample.
+     */
+    public void record(Tags tags, long nanos) {
+        if (!isSlow(nanos) || !log.isInfoEnabled()) {
+            return;
+        }
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        final var line = new StringBuilder("slow_").append(kind)
+                .append(" duration_ms=").append(nanos / 1_000_000).append('.').append(String.format("%03d", nanos / 1_000 % 1_000))
+                .append(" threshold_ms=").append(thresholdNanos / 1_000_000);
+
+        for (Tag tag : tags) {
+            line.append(' ').append(tag.getKey()).append('=').append(quote(tag.getValue()));
+        }
+
+        log.info(line.toString());
+    }
+
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+
+            if (Character.isWhitespace(c) || c == '=' || c == '"') {
+                return '"' + value.replace("\"", "\\\"") + '"';
+            }
+        }
+        return value;
+    }
+}
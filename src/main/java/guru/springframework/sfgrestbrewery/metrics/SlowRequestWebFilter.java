@@ -0,0 +1,43 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Hands every http request to the slow log with its method, path and status once the response is done.
+ */
+public class SlowRequestWebFilter implements WebFilter {
+
+    private final SlowOperationLog slowLog;
+
+    public SlowRequestWebFilter(SlowOperationLog slowLog) {
+        this.slowLog = slowLog;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final var start = System.nanoTime();
+
+        return chain.filter(exchange).doFinally(signal -> {
+            final var nanos = System.nanoTime() - start;
+
+            if (slowLog.isSlow(nanos)) {
+                slowLog.record(tags(exchange, signal), nanos);
+            }
+        });
+    }
+
+    private static Tags tags(ServerWebExchange exchange, SignalType signal) {
+        final var request = exchange.getRequest();
+        final var status = exchange.getResponse().getRawStatusCode();
+        final var tags = Tags.of("method", request.getMethodValue(),
+                "path", request.getURI().getRawPath(),
+                "status", signal == SignalType.CANCEL ? OperationTimer.CANCELLED : String.valueOf(status != null ? status : 200));
+
+        return request.getURI().getRawQuery() != null ? tags.and("query", request.getURI().getRawQuery()) : tags;
+    }
+}
@@ -0,0 +1,195 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdate;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Set based and single statement writes that ReactiveCrudRepository would issue as several statements.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BeerBulkRepository {
+
+    private static final String INSERT_BEER = "INSERT INTO beer "
+            + "(beer_name, beer_style, upc, quantity_on_hand, price, created_date, last_modified_date) "
+            + "VALUES ($1, $2, $3, $4, $5, $6, $7)";
+
+    private static final String UPDATE_BEER = "UPDATE beer "
+            + "SET beer_name = :beerName, beer_style = :beerStyle, upc = :upc, price = :price, "
+            + "last_modified_date = :lastModifiedDate, version = version + 1 "
+            + "WHERE id = :id";
+
+    private static final String UPDATE_STOCK = "UPDATE beer "
+            + "SET price = COALESCE($1, price), quantity_on_hand = COALESCE(quantity_on_hand, 0) + $2, "
+            + "last_modified_date = $3, version = version + 1 "
+            + "WHERE COALESCE(quantity_on_hand, 0) + $2 >= 0 ";
+
+    private static final String RESERVE_STOCK = "UPDATE beer SET quantity_on_hand = quantity_on_hand - :quantity "
+            + "WHERE id = :id AND quantity_on_hand >= :quantity";
+
+    private static final String RELEASE_STOCK = "UPDATE beer SET quantity_on_hand = COALESCE(quantity_on_hand, 0) + :quantity "
+            + "WHERE id = :id";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Inserts all beers with a single batched statement and emits their generated ids in order.
+     * Runs in the caller's transaction if there is one.
+     */
+    public Flux<Integer> insertAll(List<Beer> beers) {
+        if (beers.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+            final var statement = connection.createStatement(INSERT_BEER).returnGeneratedValues("id");
+
+            for (int i = 0; i < beers.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                bind(statement, beers.get(i));
+            }
+
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map((row, rowMetadata) -> row.get("id", Integer.class)));
+        });
+    }
+
+    /**
+     * Updates the name, style, upc and price of a beer in a single statement and emits the number of rows changed.
+     * If the beer carries a version the row is only changed while it still has that version.
+     */
+    public Mono<Integer> update(Beer beer) {
+        var spec = databaseClient.sql(beer.getVersion() != null ? UPDATE_BEER + " AND version = :version" : UPDATE_BEER)
+                .bind("id", beer.getId());
+
+        spec = bind(spec, "beerName", beer.getBeerName(), String.class);
+        spec = bind(spec, "beerStyle", beer.getBeerStyle() != null ? beer.getBeerStyle().name() : null, String.class);
+        spec = bind(spec, "upc", beer.getUpc(), String.class);
+        spec = bind(spec, "price", beer.getPrice(), BigDecimal.class);
+        spec = bind(spec, "lastModifiedDate", beer.getLastModifiedDate(), LocalDateTime.class);
+
+        if (beer.getVersion() != null) {
+            spec = spec.bind("version", beer.getVersion());
+        }
+
+        return spec.fetch().rowsUpdated();
+    }
+
+    /**
+     * Applies the stock updates with one batched statement for those identified by id and one for those
+     * identified by upc, and emits the updates that changed no row: their beer does not exist or their quantity
+     * delta would take its stock below zero. Runs in the caller's transaction if there is one.
+     */
+    public Mono<List<BeerStockUpdate>> updateStock(List<BeerStockUpdate> stockUpdates, LocalDateTime lastModifiedDate) {
+        final var byId = stockUpdates.stream().filter(update -> update.getId() != null).collect(Collectors.toList());
+        final var byUpc = stockUpdates.stream().filter(update -> update.getId() == null).collect(Collectors.toList());
+
+        return Flux.concat(
+                        updateStock(UPDATE_STOCK + "AND id = $4", byId, BeerStockUpdate::getId, lastModifiedDate),
+                        updateStock(UPDATE_STOCK + "AND upc = $4", byUpc, BeerStockUpdate::getUpc, lastModifiedDate))
+                .collectList();
+    }
+
+    private Flux<BeerStockUpdate> updateStock(String sql, List<BeerStockUpdate> stockUpdates,
+                                      Function<BeerStockUpdate, Object> key, LocalDateTime lastModifiedDate) {
+        if (stockUpdates.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+            final var statement = connection.createStatement(sql);
+
+            for (int i = 0; i < stockUpdates.size(); i++) {
+                final var stockUpdate = stockUpdates.get(i);
+
+                if (i > 0) {
+                    statement.add();
+                }
+                bind(statement, 0, stockUpdate.getPrice(), BigDecimal.class);
+                statement.bind(1, stockUpdate.getQuantityOnHandDelta() != null ? stockUpdate.getQuantityOnHandDelta() : 0);
+                statement.bind(2, lastModifiedDate);
+                statement.bind(3, key.apply(stockUpdate));
+            }
+
+            // one result per binding, in binding order
+            return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated)
+                    .index()
+                    .filter(rowsUpdated -> rowsUpdated.getT2() == 0)
+                    .map(rowsUpdated -> stockUpdates.get(rowsUpdated.getT1().intValue()));
+        });
+    }
+
+    /**
+     * Takes quantity off the stock of a beer if it has at least that much, emitting 1 if it did and 0 otherwise.
+     */
+    public Mono<Integer> reserveStock(Integer id, int quantity) {
+        return databaseClient.sql(RESERVE_STOCK)
+                .bind("id", id)
+                .bind("quantity", quantity)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Adds quantity back to the stock of a beer, emitting 0 if there is no beer with the id.
+     */
+    public Mono<Integer> releaseStock(Integer id, int quantity) {
+        return databaseClient.sql(RELEASE_STOCK)
+                .bind("id", id)
+                .bind("quantity", quantity)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Deletes all beers with the given ids in a single statement and emits the number of rows removed.
+     */
+    public Mono<Integer> deleteAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        return databaseClient.sql("DELETE FROM beer WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static void bind(Statement statement, Beer beer) {
+        bind(statement, 0, beer.getBeerName(), String.class);
+        bind(statement, 1, beer.getBeerStyle() != null ? beer.getBeerStyle().name() : null, String.class);
+        bind(statement, 2, beer.getUpc(), String.class);
+        bind(statement, 3, beer.getQuantityOnHand(), Integer.class);
+        bind(statement, 4, beer.getPrice(), BigDecimal.class);
+        bind(statement, 5, beer.getCreatedDate(), LocalDateTime.class);
+        bind(statement, 6, beer.getLastModifiedDate(), LocalDateTime.class);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value != null) {
+            statement.bind(index, value);
+        } else {
+            statement.bindNull(index, type);
+        }
+    }
+}
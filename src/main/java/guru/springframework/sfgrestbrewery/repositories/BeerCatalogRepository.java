@@ -0,0 +1,29 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.BeerCatalog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * The single row of the beer_catalog table.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BeerCatalogRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<BeerCatalog> find() {
+        return databaseClient.sql("SELECT epoch, version FROM beer_catalog WHERE id = 1")
+                .map((row, rowMetadata) -> new BeerCatalog(row.get("epoch", String.class), row.get("version", Long.class)))
+                .one();
+    }
+
+    public Mono<Integer> bumpVersion() {
+        return databaseClient.sql("UPDATE beer_catalog SET version = version + 1 WHERE id = 1")
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -3,8 +3,11 @@ package guru.springframework.sfgrestbrewery.repositories;
 
 import guru.springframework.sfgrestbrewery.domain.Beer;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 
 public interface BeerRepository extends ReactiveCrudRepository<Beer, Integer> {
     // public interface BeerRepository extends JpaRepository<Beer, UUID> {
@@ -22,4 +25,6 @@ public interface BeerRepository extends ReactiveCrudRepository<Beer, Integer> {
 //    Flux<Page<Beer>> findAllByBeerNameAndBeerStyle(String beerName, BeerStyleEnum beerStyle, Pageable pageable);
 
     Mono<Beer> findByUpc(String upc);
+
+    Flux<Beer> findByUpcIn(Collection<String> upcs);
 }
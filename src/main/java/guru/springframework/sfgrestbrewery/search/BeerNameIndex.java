@@ -0,0 +1,147 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of beer names for case-insensitive prefix and word search. Names are lower cased, stripped
+ * of accents and split into words; both the whole name and every word are kept in sorted maps, so all names
+ * starting with a prefix are one contiguous key range. The write paths keep it in step with the beer table.
+ */
+@Component
+public class BeerNameIndex {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final Map<Integer, Entry> beers = new ConcurrentHashMap<>();
+
+    // keys are the normalized name or word followed by the zero padded id, values the id
+    private final NavigableMap<String, Integer> names = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Integer> words = new ConcurrentSkipListMap<>();
+
+    public void put(Beer beer) {
+        put(beer.getId(), beer.getBeerName(), beer.getBeerStyle() != null ? beer.getBeerStyle().name() : null);
+    }
+
+    public synchronized void put(Integer id, String beerName, String beerStyle) {
+        remove(id);
+
+        final var beerWords = tokenize(beerName);
+        final var entry = new Entry(new BeerSuggestion(id, beerName, beerStyle), String.join(" ", beerWords), beerWords);
+        beers.put(id, entry);
+        names.put(key(entry.getName(), id), id);
+        entry.getWords().forEach(word -> words.put(key(word, id), id));
+    }
+
+    public synchronized void remove(Integer id) {
+        final var entry = beers.remove(id);
+
+        if (entry != null) {
+            names.remove(key(entry.getName(), id));
+            entry.getWords().forEach(word -> words.remove(key(word, id)));
+        }
+    }
+
+    /**
+     * Returns up to limit beers having, for every word of the query, a word in their name starting with it.
+     * Names that start with the whole query come first, in name order.
+     */
+    public List<BeerSuggestion> search(String query, int limit) {
+        final var queryWords = tokenize(query);
+        final var matches = new LinkedHashMap<Integer, BeerSuggestion>();
+
+        if (queryWords.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        collect(prefixRange(names, String.join(" ", queryWords)), queryWords, limit, matches);
+        collectWordMatches(queryWords, limit, matches);
+
+        return new ArrayList<>(matches.values());
+    }
+
+    public int size() {
+        return beers.size();
+    }
+
+    private void collectWordMatches(List<String> queryWords, int limit, Map<Integer, BeerSuggestion> matches) {
+        // walk the ranges of all query words side by side: dense matches fill the limit early, otherwise the first
+        // range to run out is the smallest candidate set and only that one is checked in full
+        final var ranges = queryWords.stream().map(word -> prefixRange(words, word)).collect(Collectors.toList());
+        final var cursors = ranges.stream().map(Collection::iterator).collect(Collectors.toList());
+
+        while (matches.size() < limit) {
+            for (int i = 0; i < cursors.size() && matches.size() < limit; i++) {
+                if (!cursors.get(i).hasNext()) {
+                    collect(ranges.get(i), queryWords, limit, matches);
+                    return;
+                }
+                offer(cursors.get(i).next(), queryWords, matches);
+            }
+        }
+    }
+
+    private void collect(Collection<Integer> ids, List<String> queryWords, int limit, Map<Integer, BeerSuggestion> matches) {
+        for (Integer id : ids) {
+            if (matches.size() >= limit) {
+                return;
+            }
+            offer(id, queryWords, matches);
+        }
+    }
+
+    private void offer(Integer id, List<String> queryWords, Map<Integer, BeerSuggestion> matches) {
+        final var entry = beers.get(id);
+
+        if (entry != null && !matches.containsKey(id) && entry.matches(queryWords)) {
+            matches.put(id, entry.getBeer());
+        }
+    }
+
+    private static Collection<Integer> prefixRange(NavigableMap<String, Integer> index, String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    private static String key(String value, Integer id) {
+        return String.format("%s\u0000%010d", value, id);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+
+        final var folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+
+        return SEPARATORS.splitAsStream(folded.toLowerCase(Locale.ROOT))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    @Value
+    private static class Entry {
+        BeerSuggestion beer;
+        String name;
+        List<String> words;
+
+        boolean matches(List<String> queryWords) {
+            return queryWords.stream().allMatch(queryWord -> words.stream().anyMatch(word -> word.startsWith(queryWord)));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerIngestResult;
+import reactor.core.publisher.Flux;
+
+public interface BeerIngestService {
+
+    Flux<BeerIngestResult> ingestBeers(Flux<BeerDto> beerDtos);
+}
@@ -0,0 +1,236 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogReplica;
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogVersion;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.cache.BeerListKey;
+import guru.springframework.sfgrestbrewery.cache.ReactiveCache;
+import guru.springframework.sfgrestbrewery.config.BeerIngestProperties;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.repositories.BeerBulkRepository;
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.search.BeerNameIndex;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerIngestResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Validator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BeerIngestServiceImpl implements BeerIngestService {
+
+    private final BeerBulkRepository beerBulkRepository;
+    private final BeerRepository beerRepository;
+    private final BeerMapper beerMapper;
+    private final Validator validator;
+    private final TransactionalOperator transactionalOperator;
+    private final BeerIngestProperties properties;
+    private final BeerNameIndex beerNameIndex;
+    private final BeerCatalogReplica beerCatalogReplica;
+    private final BeerCatalogVersion beerCatalogVersion;
+
+    private final ReactiveCache<BeerListKey, BeerPagedList> beerListCache;
+    private final ReactiveCache<BeerFilter, Long> beerCountCache;
+
+    @Override
+    public Flux<BeerIngestResult> ingestBeers(Flux<BeerDto> beerDtos) {
+        // concatMap keeps one transaction in flight, so a fast client cannot outrun the database
+        return beerDtos.index()
+                .map(this::toPendingBeer)
+                .buffer(properties.getTransactionSize())
+                .concatMap(this::insertInTransaction);
+    }
+
+    private Flux<BeerIngestResult> insertInTransaction(List<PendingBeer> pendingBeers) {
+        return rejectDuplicateUpcs(pendingBeers)
+                .flatMap(checked -> insertAll(checked)
+                        // a concurrent writer took a upc after the check, so find the offending beers one at a time
+                        .onErrorResume(DataIntegrityViolationException.class, e -> Flux.fromIterable(checked)
+                                .concatMap(this::insertOne)
+                                .collectList()))
+                .onErrorResume(e -> {
+                    log.warn("Bulk insert of {} beers rolled back", pendingBeers.size(), e);
+                    return Mono.just(pendingBeers.stream()
+                            .map(pendingBeer -> pendingBeer.isValid() ? pendingBeer.fail(e.getMessage()) : pendingBeer)
+                            .collect(Collectors.toList()));
+                })
+                .flatMap(this::publish)
+                .flatMapIterable(BeerIngestServiceImpl::toResults);
+    }
+
+    private Mono<List<PendingBeer>> rejectDuplicateUpcs(List<PendingBeer> pendingBeers) {
+        final var upcs = pendingBeers.stream()
+                .filter(PendingBeer::isValid)
+                .map(pendingBeer -> pendingBeer.getBeer().getUpc())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        if (upcs.isEmpty()) {
+            return Mono.just(pendingBeers);
+        }
+
+        return beerRepository.findByUpcIn(upcs)
+                .map(Beer::getUpc)
+                .collect(Collectors.toSet())
+                .map(existingUpcs -> {
+                    final var seenUpcs = new HashSet<String>();
+
+                    return pendingBeers.stream()
+                            .map(pendingBeer -> {
+                                final var upc = pendingBeer.isValid() ? pendingBeer.getBeer().getUpc() : null;
+
+                                if (upc == null) {
+                                    return pendingBeer;
+                                } else if (existingUpcs.contains(upc)) {
+                                    return pendingBeer.fail("upc : already exists");
+                                } else if (!seenUpcs.add(upc)) {
+                                    return pendingBeer.fail("upc : duplicates an earlier beer in the request");
+                                }
+                                return pendingBeer;
+                            })
+                            .collect(Collectors.toList());
+                });
+    }
+
+    private Mono<List<PendingBeer>> insertAll(List<PendingBeer> pendingBeers) {
+        final var beers = pendingBeers.stream()
+                .filter(PendingBeer::isValid)
+                .map(PendingBeer::getBeer)
+                .collect(Collectors.toList());
+
+        return Flux.fromIterable(partition(beers, properties.getBatchSize()))
+                .concatMap(beerBulkRepository::insertAll)
+                .as(transactionalOperator::transactional)
+                .collectList()
+                .map(ids -> {
+                    for (int i = 0; i < ids.size(); i++) {
+                        beers.get(i).setId(ids.get(i));
+                    }
+                    return pendingBeers;
+                });
+    }
+
+    private Mono<PendingBeer> insertOne(PendingBeer pendingBeer) {
+        if (!pendingBeer.isValid()) {
+            return Mono.just(pendingBeer);
+        }
+
+        return beerBulkRepository.insertAll(List.of(pendingBeer.getBeer()))
+                .next()
+                .map(id -> {
+                    pendingBeer.getBeer().setId(id);
+                    return pendingBeer;
+                })
+                // beer_upc_uk is the only constraint an insert can break
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(pendingBeer.fail("upc : already exists")))
+                .onErrorResume(e -> Mono.just(pendingBeer.fail(e.getMessage())));
+    }
+
+    private Mono<List<PendingBeer>> publish(List<PendingBeer> pendingBeers) {
+        final var inserted = pendingBeers.stream()
+                .filter(PendingBeer::isValid)
+                .map(PendingBeer::getBeer)
+                .collect(Collectors.toList());
+
+        if (inserted.isEmpty()) {
+            return Mono.just(pendingBeers);
+        }
+
+        beerListCache.invalidateAll();
+        beerCountCache.invalidateAll();
+        inserted.forEach(beerNameIndex::put);
+
+        return replicate(inserted.stream().map(Beer::getId).collect(Collectors.toList()))
+                .then(beerCatalogVersion.changed())
+                .thenReturn(pendingBeers);
+    }
+
+    private Mono<Void> replicate(List<Integer> ids) {
+        // read back rather than built from the request, so the replica has the defaults the database filled in
+        if (!beerCatalogReplica.isEnabled() || ids.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return beerRepository.findAllById(ids)
+                .map(beerMapper::beerToBeerDto)
+                .collectList()
+                .doOnNext(beerCatalogReplica::putAll)
+                .onErrorResume(e -> {
+                    log.warn("Replicating {} ingested beers failed", ids.size(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private PendingBeer toPendingBeer(Tuple2<Long, BeerDto> indexedBeerDto) {
+        final var beerDto = indexedBeerDto.getT2();
+        final var errors = new BeanPropertyBindingResult(beerDto, "beerDto");
+        validator.validate(beerDto, errors);
+
+        if (errors.hasErrors()) {
+            return new PendingBeer(indexedBeerDto.getT1(), null, BeerIngestResult.Status.INVALID, errors.getFieldErrors().stream()
+                    .map(fieldError -> fieldError.getField() + " : " + fieldError.getDefaultMessage())
+                    .collect(Collectors.toList()));
+        }
+
+        try {
+            return new PendingBeer(indexedBeerDto.getT1(), beerMapper.beerDtoToBeer(beerDto), null, List.of());
+        } catch (IllegalArgumentException e) {
+            return new PendingBeer(indexedBeerDto.getT1(), null, BeerIngestResult.Status.INVALID, List.of("beerStyle : " + e.getMessage()));
+        }
+    }
+
+    private static List<BeerIngestResult> toResults(List<PendingBeer> pendingBeers) {
+        return pendingBeers.stream()
+                .map(pendingBeer -> pendingBeer.isValid()
+                        ? BeerIngestResult.builder().index(pendingBeer.getIndex())
+                                .status(BeerIngestResult.Status.CREATED).id(pendingBeer.getBeer().getId()).build()
+                        : BeerIngestResult.builder().index(pendingBeer.getIndex())
+                                .status(pendingBeer.getRejection()).errors(pendingBeer.getErrors()).build())
+                .collect(Collectors.toList());
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        final var partitions = new ArrayList<List<T>>();
+
+        for (int i = 0; i < items.size(); i += size) {
+            partitions.add(items.subList(i, Math.min(i + size, items.size())));
+        }
+
+        return partitions;
+    }
+
+    @Value
+    private static class PendingBeer {
+        long index;
+        Beer beer;
+        BeerIngestResult.Status rejection;
+        List<String> errors;
+
+        boolean isValid() {
+            return rejection == null;
+        }
+
+        PendingBeer fail(String error) {
+            return new PendingBeer(index, null, BeerIngestResult.Status.FAILED, List.of(error));
+        }
+    }
+}
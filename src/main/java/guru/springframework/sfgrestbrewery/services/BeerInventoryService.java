@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdate;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdateResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface BeerInventoryService {
+
+    Flux<BeerStockUpdateResult> applyStockUpdates(Flux<BeerStockUpdate> stockUpdates);
+
+    /**
+     * Emits true if quantity was reserved and false if the beer does not have that much stock.
+     * Fails with NotFoundException if there is no beer with the id.
+     */
+    Mono<Boolean> reserve(Integer beerId, int quantity);
+
+    /**
+     * Returns previously reserved stock. Fails with NotFoundException if there is no beer with the id.
+     */
+    Mono<Void> release(Integer beerId, int quantity);
+}
@@ -0,0 +1,244 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogReplica;
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogVersion;
+import guru.springframework.sfgrestbrewery.cache.BeerListKey;
+import guru.springframework.sfgrestbrewery.cache.ReactiveCache;
+import guru.springframework.sfgrestbrewery.cache.SingleFlight;
+import guru.springframework.sfgrestbrewery.config.BeerInventoryProperties;
+import guru.springframework.sfgrestbrewery.config.BeerStockProperties;
+import guru.springframework.sfgrestbrewery.inventory.StripedStockCounter;
+import guru.springframework.sfgrestbrewery.repositories.BeerBulkRepository;
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdate;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BeerInventoryServiceImpl implements BeerInventoryService {
+
+    private final BeerRepository beerRepository;
+    private final BeerBulkRepository beerBulkRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final BeerStockProperties properties;
+    private final BeerInventoryProperties inventoryProperties;
+    private final BeerMapper beerMapper;
+
+    private final ReactiveCache<Integer, BeerDto> beerCache;
+    private final ReactiveCache<String, BeerDto> beerUpcCache;
+    private final ReactiveCache<BeerListKey, BeerPagedList> beerListCache;
+
+    private final SingleFlight<Integer, BeerDto> beerByIdFlight;
+    private final SingleFlight<String, BeerDto> beerByUpcFlight;
+
+    private final BeerCatalogReplica beerCatalogReplica;
+    private final BeerCatalogVersion beerCatalogVersion;
+
+    private final Map<Integer, StripedStockCounter> hotBeers = new ConcurrentHashMap<>();
+    private Disposable hotBeerFlusher;
+
+    @PostConstruct
+    void startHotBeers() {
+        inventoryProperties.getHotBeerIds().forEach(beerId -> hotBeers.put(beerId, new StripedStockCounter(
+                inventoryProperties.getStripes(),
+                inventoryProperties.getLeaseSize(),
+                quantity -> beerBulkRepository.reserveStock(beerId, quantity).map(reserved -> reserved > 0),
+                quantity -> beerBulkRepository.releaseStock(beerId, quantity).then())));
+
+        if (!hotBeers.isEmpty()) {
+            hotBeerFlusher = Flux.interval(inventoryProperties.getFlushInterval())
+                    .onBackpressureDrop()
+                    .concatMap(tick -> flushHotBeers().onErrorResume(e -> {
+                        log.warn("Returning leased stock of hot beers failed", e);
+                        return Mono.empty();
+                    }))
+                    .subscribe();
+        }
+    }
+
+    @PreDestroy
+    void stopHotBeers() {
+        if (hotBeerFlusher != null) {
+            hotBeerFlusher.dispose();
+            flushHotBeers().block();
+        }
+    }
+
+    @Override
+    public Flux<BeerStockUpdateResult> applyStockUpdates(Flux<BeerStockUpdate> stockUpdates) {
+        // concatMap keeps one batch in flight and the batches closed meanwhile queue up as they are, unmerged.
+        // bufferTimeout closes a window on time whether or not there is demand, so the queue is bounded
+        // explicitly: a client that outruns the database by more than maxPendingBatches is failed
+        return stockUpdates.bufferTimeout(properties.getBatchSize(), properties.getBatchWindow())
+                .onBackpressureBuffer(properties.getMaxPendingBatches(),
+                        batch -> log.warn("Stock update batch of {} records dropped, {} batches already pending",
+                                batch.size(), properties.getMaxPendingBatches()),
+                        BufferOverflowStrategy.ERROR)
+                .concatMap(this::applyBatch, 1);
+    }
+
+    @Override
+    public Mono<Boolean> reserve(Integer beerId, int quantity) {
+        final var hotBeer = hotBeers.get(beerId);
+        final var reservation = hotBeer != null
+                ? hotBeer.reserve(quantity)
+                : beerBulkRepository.reserveStock(beerId, quantity).map(reserved -> reserved > 0);
+
+        return reservation.flatMap(reserved -> reserved ? Mono.just(true) : beerRepository.existsById(beerId)
+                .flatMap(exists -> exists ? Mono.just(false) : Mono.error(new NotFoundException())));
+    }
+
+    @Override
+    public Mono<Void> release(Integer beerId, int quantity) {
+        final var hotBeer = hotBeers.get(beerId);
+
+        if (hotBeer != null) {
+            return Mono.fromRunnable(() -> hotBeer.release(quantity));
+        }
+
+        return beerBulkRepository.releaseStock(beerId, quantity)
+                .flatMap(released -> released > 0 ? Mono.<Void>empty() : Mono.error(new NotFoundException()));
+    }
+
+    private Mono<Void> flushHotBeers() {
+        return Flux.fromIterable(hotBeers.values())
+                .concatMap(StripedStockCounter::flush)
+                .then();
+    }
+
+    private Mono<BeerStockUpdateResult> applyBatch(List<BeerStockUpdate> batch) {
+        final var valid = batch.stream().filter(BeerInventoryServiceImpl::isValid).collect(Collectors.toList());
+        final var coalesced = coalesce(valid);
+        final var result = BeerStockUpdateResult.builder()
+                .records(batch.size())
+                .rejected(batch.size() - valid.size())
+                .beers(coalesced.size());
+
+        return beerBulkRepository.updateStock(coalesced, LocalDateTime.now())
+                .flatMap(unchanged -> countExisting(unchanged).map(insufficientStock -> result
+                        .updated(coalesced.size() - unchanged.size())
+                        .insufficientStock(insufficientStock.intValue())))
+                .as(transactionalOperator::transactional)
+                .doOnNext(applied -> evict(coalesced))
+                // every stock update bumps the version of the beers, which list pages show
+                .flatMap(applied -> replicate(coalesced).then(beerCatalogVersion.changed()).thenReturn(applied))
+                .map(BeerStockUpdateResult.BeerStockUpdateResultBuilder::build)
+                .onErrorResume(e -> {
+                    log.warn("Stock update of {} beers rolled back", coalesced.size(), e);
+                    return Mono.just(result.error(e.getMessage()).build());
+                });
+    }
+
+    /**
+     * Counts the unchanged updates whose beer exists, which the stock floor held back.
+     */
+    private Mono<Long> countExisting(List<BeerStockUpdate> unchanged) {
+        final var ids = unchanged.stream().map(BeerStockUpdate::getId).filter(id -> id != null).collect(Collectors.toList());
+        final var upcs = unchanged.stream().filter(update -> update.getId() == null).map(BeerStockUpdate::getUpc).collect(Collectors.toList());
+
+        return Flux.concat(ids.isEmpty() ? Flux.empty() : beerRepository.findAllById(ids),
+                        upcs.isEmpty() ? Flux.empty() : beerRepository.findByUpcIn(upcs))
+                .count();
+    }
+
+    private void evict(List<BeerStockUpdate> stockUpdates) {
+        // every stock update bumps the version, which cached beers and list pages show, so all of them are stale
+        final Set<Integer> ids = stockUpdates.stream().map(BeerStockUpdate::getId).filter(id -> id != null).collect(Collectors.toSet());
+        final Set<String> upcs = stockUpdates.stream().map(BeerStockUpdate::getUpc).filter(upc -> upc != null).collect(Collectors.toSet());
+
+        ids.forEach(id -> {
+            beerByIdFlight.forget(id);
+            beerCache.evict(id);
+        });
+        upcs.forEach(upc -> {
+            beerByUpcFlight.forget(upc);
+            beerUpcCache.evict(upc);
+        });
+
+        beerCache.evictValuesIf(beerDto -> upcs.contains(beerDto.getUpc()));
+        beerUpcCache.evictValuesIf(beerDto -> ids.contains(beerDto.getId()));
+        beerListCache.invalidateAll();
+    }
+
+    private Mono<Void> replicate(List<BeerStockUpdate> stockUpdates) {
+        // every stock update bumps the version, so the replica reads back all beers the batch touched
+        if (!beerCatalogReplica.isEnabled()) {
+            return Mono.empty();
+        }
+
+        final var ids = stockUpdates.stream().map(BeerStockUpdate::getId).filter(id -> id != null).collect(Collectors.toList());
+        final var upcs = stockUpdates.stream().filter(update -> update.getId() == null).map(BeerStockUpdate::getUpc).collect(Collectors.toList());
+
+        return Flux.concat(ids.isEmpty() ? Flux.empty() : beerRepository.findAllById(ids),
+                        upcs.isEmpty() ? Flux.empty() : beerRepository.findByUpcIn(upcs))
+                .map(beerMapper::beerToBeerDto)
+                .collectList()
+                .doOnNext(beerCatalogReplica::putAll)
+                .onErrorResume(e -> {
+                    log.warn("Replicating stock updates of {} beers failed", stockUpdates.size(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Merges updates for the same beer: the last price wins and quantity deltas add up.
+     */
+    private static List<BeerStockUpdate> coalesce(List<BeerStockUpdate> stockUpdates) {
+        final var byBeer = new LinkedHashMap<Object, BeerStockUpdate>();
+
+        for (BeerStockUpdate stockUpdate : stockUpdates) {
+            final Object key = stockUpdate.getId() != null ? stockUpdate.getId() : stockUpdate.getUpc();
+            byBeer.merge(key, stockUpdate, BeerInventoryServiceImpl::combine);
+        }
+
+        return new ArrayList<>(byBeer.values());
+    }
+
+    private static BeerStockUpdate combine(BeerStockUpdate earlier, BeerStockUpdate later) {
+        return BeerStockUpdate.builder()
+                .id(earlier.getId())
+                .upc(earlier.getUpc())
+                .price(later.getPrice() != null ? later.getPrice() : earlier.getPrice())
+                .quantityOnHandDelta(sum(earlier.getQuantityOnHandDelta(), later.getQuantityOnHandDelta()))
+                .build();
+    }
+
+    private static Integer sum(Integer a, Integer b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a + b;
+    }
+
+    private static boolean isValid(BeerStockUpdate stockUpdate) {
+        return (stockUpdate.getId() != null || stockUpdate.getUpc() != null)
+                && (stockUpdate.getQuantityOnHandDelta() != null || stockUpdate.getPrice() != null)
+                && (stockUpdate.getPrice() == null || stockUpdate.getPrice().compareTo(BigDecimal.ZERO) >= 0);
+    }
+}
@@ -1,11 +1,16 @@
 package guru.springframework.sfgrestbrewery.services;
 
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursorPage;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
 import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -14,17 +19,36 @@ import java.util.UUID;
 public interface BeerService {
     Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, Boolean showInventoryOnHand);
 
+    Mono<BeerCursorPage> listBeersAfter(BeerStyleEnum beerStyle, BeerCursor cursor, int pageSize, Boolean showInventoryOnHand);
+
+    Flux<BeerDto> streamBeers(BeerStyleEnum beerStyle, Boolean showInventoryOnHand);
+
+    /**
+     * Emits up to limit beers whose name has a word starting with each word of the query, ignoring case and accents.
+     */
+    Flux<BeerSuggestion> searchBeers(String query, int limit);
+
     Mono<BeerDto> getById(Integer beerId, Boolean showInventoryOnHand);
 
     Mono<BeerDto> saveNewBeer(BeerDto beerDto);
 
     Mono<BeerDto> saveNewBeer(Mono<BeerDto> beerDto);
 
-    Mono<BeerDto> updateBeer(Integer beerId, BeerDto beerDto);
+    /**
+     * Emits the number of beers updated, 0 if there is none with the id. Fails with
+     * OptimisticLockingFailureException if beerDto carries a version the beer no longer has.
+     */
+    Mono<Integer> updateBeer(Integer beerId, BeerDto beerDto);
 
     Mono<BeerDto> getByUpc(String upc);
 
-    void deleteBeerById(Integer beerId);
+    Mono<Void> deleteBeerById(Integer beerId);
+
+    Mono<Integer> deleteBeersById(Collection<Integer> beerIds);
 
-    Mono<Void> reactiveDeleteBeerId(Integer beerId);
+    /**
+     * Changes with every write that can change a list of beers without the quantity on hand, on any instance.
+     * Null until it has been read from the database.
+     */
+    String getCatalogVersion();
 }
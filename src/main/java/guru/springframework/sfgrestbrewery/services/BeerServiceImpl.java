@@ -1,25 +1,46 @@
 package guru.springframework.sfgrestbrewery.services;
 
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogReplica;
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogVersion;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.cache.BeerListKey;
+import guru.springframework.sfgrestbrewery.cache.ReactiveCache;
+import guru.springframework.sfgrestbrewery.cache.SingleFlight;
 import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.metrics.OperationTimer;
+import guru.springframework.sfgrestbrewery.repositories.BeerBulkRepository;
 import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.search.BeerNameIndex;
 import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
 import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursorPage;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
@@ -33,19 +54,57 @@ import static org.springframework.data.relational.core.query.Query.query;
 @Service
 @RequiredArgsConstructor
 public class BeerServiceImpl implements BeerService {
+
+    // how a read was answered, tagged on the beer.service timer
+    private static final String CACHE_HIT = "hit";
+    private static final String CACHE_MISS = "miss";
+    private static final String CACHE_REPLICA = "replica";
+    private static final String CACHE_BYPASS = "bypass";
+    private static final String CACHE_NONE = "none";
+
     private final BeerRepository beerRepository;
+    private final BeerBulkRepository beerBulkRepository;
     private final BeerMapper beerMapper;
 
     private final R2dbcEntityTemplate template;
 
-    @Cacheable(cacheNames = "beerListCache", condition = "#showInventoryOnHand == false ")
+    private final ReactiveCache<Integer, BeerDto> beerCache;
+    private final ReactiveCache<String, BeerDto> beerUpcCache;
+    private final ReactiveCache<BeerListKey, BeerPagedList> beerListCache;
+    private final ReactiveCache<BeerFilter, Long> beerCountCache;
+
+    private final SingleFlight<Integer, BeerDto> beerByIdFlight;
+    private final SingleFlight<String, BeerDto> beerByUpcFlight;
+
+    private final BeerNameIndex beerNameIndex;
+    private final BeerCatalogReplica beerCatalogReplica;
+    private final BeerCatalogVersion beerCatalogVersion;
+
+    private final OperationTimer beerServiceTimer;
+
     @Override
     public Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, Boolean showInventoryOnHand) {
+        if (showInventoryOnHand) {
+            return beerServiceTimer.lookup(() -> tags("listBeers", CACHE_BYPASS), findBeers(beerName, beerStyle, pageRequest));
+        }
 
-        Query query = null;
+        if (beerCatalogReplica.isServing() && pageRequest.getSort().isUnsorted()) {
+            return beerServiceTimer.lookup(() -> tags("listBeers", CACHE_REPLICA),
+                    Mono.fromSupplier(() -> replicaPage(beerName, beerStyle, pageRequest)));
+        }
+
+        final var cacheResult = new AtomicReference<>(CACHE_HIT);
 
-        BeerPagedList beerPagedList = null;
-        Page<Beer> beerPage = null;
+        return beerServiceTimer.lookup(() -> tags("listBeers", cacheResult.get()),
+                beerListCache.get(BeerListKey.of(beerName, beerStyle, pageRequest), key -> {
+                    cacheResult.set(CACHE_MISS);
+                    return findBeers(beerName, beerStyle, pageRequest);
+                }));
+    }
+
+    private Mono<BeerPagedList> findBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest) {
+
+        Query query = null;
 
         if (!StringUtils.isEmpty(beerName) && !StringUtils.isEmpty(beerStyle)) {
             //search both
@@ -60,78 +119,267 @@ public class BeerServiceImpl implements BeerService {
             query = empty();
         }
 
-        return template.select(Beer.class)
-                .matching(query.with(pageRequest))
+        final var countQuery = query;
+        final var pagedQuery = query.with(pageRequest.getSort().isSorted() ? pageRequest : PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), Sort.by("id")));
+
+        // rows and total count are fetched concurrently, each on its own connection
+        final var beers = template.select(Beer.class)
+                .matching(pagedQuery)
                 .all()
                 .map(beerMapper::beerToBeerDto)
-                .collect(Collectors.toList())
-                .map(beers -> new BeerPagedList(beers, PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()), beers.size()));
+                .collect(Collectors.toList());
+        final var total = beerCountCache.get(BeerFilter.of(beerName, beerStyle), filter -> template.count(countQuery, Beer.class));
+
+        return Mono.zip(beers, total)
+                .map(pageAndTotal -> new BeerPagedList(pageAndTotal.getT1(),
+                        PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()), pageAndTotal.getT2()));
+    }
+
+    private BeerPagedList replicaPage(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest) {
+        final var beers = beerCatalogReplica.findAll(StringUtils.hasLength(beerName) ? beerName : null,
+                beerStyle != null ? beerStyle.name() : null);
+        final var from = (int) Math.min(pageRequest.getOffset(), beers.size());
+
+        return new BeerPagedList(new ArrayList<>(beers.subList(from, Math.min(beers.size(), from + pageRequest.getPageSize()))),
+                PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()), beers.size());
+    }
+
+    @Override
+    public Mono<BeerCursorPage> listBeersAfter(BeerStyleEnum beerStyle, BeerCursor cursor, int pageSize, Boolean showInventoryOnHand) {
+        if (!showInventoryOnHand && cursor.getSortKey() == BeerCursor.SortKey.ID && beerCatalogReplica.isServing()) {
+            return beerServiceTimer.command(tags("listBeersAfter", CACHE_REPLICA), Mono.fromSupplier(() -> toCursorPage(cursor, pageSize,
+                    beerCatalogReplica.findAfter(beerStyle != null ? beerStyle.name() : null, cursor.getId(), pageSize + 1))));
+        }
+
+        final var criteria = new ArrayList<Criteria>();
+
+        if (beerStyle != null) {
+            criteria.add(where("beerStyle").is(beerStyle));
+        }
+
+        if (!cursor.isStart()) {
+            if (cursor.getSortKey() == BeerCursor.SortKey.NAME) {
+                // (beer_name, id) > (:beerName, :id)
+                criteria.add(where("beerName").greaterThan(cursor.getBeerName())
+                        .or(where("beerName").is(cursor.getBeerName()).and("id").greaterThan(cursor.getId())));
+            } else {
+                criteria.add(where("id").greaterThan(cursor.getId()));
+            }
+        }
+
+        final var sort = cursor.getSortKey() == BeerCursor.SortKey.NAME ? Sort.by("beerName", "id") : Sort.by("id");
+        final Function<Beer, BeerDto> toDto = showInventoryOnHand ? beerMapper::beerToBeerDtoWithInventory : beerMapper::beerToBeerDto;
+
+        // one extra row tells us whether there is a next page without a count
+        return beerServiceTimer.command(tags("listBeersAfter", CACHE_NONE), template.select(Beer.class)
+                .matching(query(Criteria.from(criteria)).sort(sort).limit(pageSize + 1))
+                .all()
+                .map(toDto)
+                .collectList()
+                .map(beers -> toCursorPage(cursor, pageSize, beers)));
+    }
+
+    private static BeerCursorPage toCursorPage(BeerCursor cursor, int pageSize, List<BeerDto> beers) {
+        if (beers.size() <= pageSize) {
+            return new BeerCursorPage(beers, null);
+        }
+
+        final var page = new ArrayList<>(beers.subList(0, pageSize));
+        return new BeerCursorPage(page, BeerCursor.after(cursor.getSortKey(), page.get(pageSize - 1)).encode());
+    }
+
+    @Override
+    public Flux<BeerDto> streamBeers(BeerStyleEnum beerStyle, Boolean showInventoryOnHand) {
+        final var criteria = beerStyle != null ? where("beerStyle").is(beerStyle) : Criteria.empty();
+        final Function<Beer, BeerDto> toDto = showInventoryOnHand ? beerMapper::beerToBeerDtoWithInventory : beerMapper::beerToBeerDto;
+
+        // rows are requested from the driver as the response is written, nothing is collected here
+        return beerServiceTimer.stream(tags("streamBeers", CACHE_NONE), template.select(Beer.class)
+                .matching(query(criteria).sort(Sort.by("id")))
+                .all()
+                .map(toDto));
+    }
+
+    @Override
+    public Flux<BeerSuggestion> searchBeers(String query, int limit) {
+        return beerServiceTimer.stream(tags("searchBeers", CACHE_NONE),
+                Flux.defer(() -> Flux.fromIterable(beerNameIndex.search(query, limit))));
     }
 
-    @Cacheable(cacheNames = "beerCache", key = "#beerId", condition = "#showInventoryOnHand == false ")
     @Override
     public Mono<BeerDto> getById(Integer beerId, Boolean showInventoryOnHand) {
         if (showInventoryOnHand) {
-            return beerRepository.findById(beerId).map(beerMapper::beerToBeerDtoWithInventory);
+            return beerServiceTimer.lookup(() -> tags("getById", CACHE_BYPASS),
+                    beerRepository.findById(beerId).map(beerMapper::beerToBeerDtoWithInventory));
+        } else if (beerCatalogReplica.isServing()) {
+            return beerServiceTimer.lookup(() -> tags("getById", CACHE_REPLICA), Mono.justOrEmpty(beerCatalogReplica.findById(beerId)));
         } else {
-            return beerRepository.findById(beerId).map(beerMapper::beerToBeerDto);
+            final var cacheResult = new AtomicReference<>(CACHE_HIT);
+
+            return beerServiceTimer.lookup(() -> tags("getById", cacheResult.get()), beerCache.get(beerId, id -> {
+                cacheResult.set(CACHE_MISS);
+                return beerByIdFlight.execute(id, key -> beerRepository.findById(key).map(beerMapper::beerToBeerDto));
+            }));
         }
     }
 
     @Override
     public Mono<BeerDto> saveNewBeer(BeerDto beerDto) {
-        return beerRepository.save(beerMapper.beerDtoToBeer(beerDto)).map(beerMapper::beerToBeerDto);
+        return beerServiceTimer.command(tags("saveNewBeer", CACHE_NONE), beerRepository.save(beerMapper.beerDtoToBeer(beerDto))
+                .map(beerMapper::beerToBeerDto)
+                .doOnNext(this::cacheNewBeer)
+                .flatMap(savedDto -> beerCatalogVersion.changed().thenReturn(savedDto)));
     }
 
     @Override
     public Mono<BeerDto> saveNewBeer(Mono<BeerDto> beerDto) {
-        return beerDto.map(beerMapper::beerDtoToBeer)
+        // timed from the request body on, so this includes reading and decoding it
+        return beerServiceTimer.command(tags("saveNewBeer", CACHE_NONE), beerDto.map(beerMapper::beerDtoToBeer)
                 .flatMap(beerRepository::save)
-                .map(beerMapper::beerToBeerDto);
+                .map(beerMapper::beerToBeerDto)
+                .doOnNext(this::cacheNewBeer)
+                .flatMap(savedDto -> beerCatalogVersion.changed().thenReturn(savedDto)));
     }
 
     @Override
-    public Mono<BeerDto> updateBeer(Integer beerId, BeerDto beerDto) {
-        return beerRepository.findById(beerId)
-                .defaultIfEmpty(Beer.builder().build())
-                .map(beerDtoToUpdate -> {
-                    beerDtoToUpdate.setBeerName(beerDto.getBeerName());
-                    beerDtoToUpdate.setBeerStyle(BeerStyleEnum.valueOf(beerDto.getBeerStyle()));
-                    beerDtoToUpdate.setPrice(beerDto.getPrice());
-                    beerDtoToUpdate.setUpc(beerDto.getUpc());
-                    return beerDtoToUpdate;
-                }).flatMap(updateBeer -> {
-                    if (updateBeer.getId() != null) {
-                        return beerRepository.save(updateBeer);
+    public Mono<Integer> updateBeer(Integer beerId, BeerDto beerDto) {
+        final var previous = beerCache.getIfPresent(beerId);
+        final var beer = beerMapper.beerDtoToBeer(beerDto);
+        beer.setId(beerId);
+        beer.setVersion(beerDto.getVersion());
+        beer.setLastModifiedDate(LocalDateTime.now());
+
+        return beerServiceTimer.command(tags("updateBeer", CACHE_NONE), beerBulkRepository.update(beer)
+                .flatMap(updated -> updated == 0 && beer.getVersion() != null
+                        ? beerRepository.existsById(beerId).flatMap(exists -> exists
+                                ? Mono.<Integer>error(new OptimisticLockingFailureException("Beer " + beerId + " is not at version " + beer.getVersion()))
+                                : Mono.just(0))
+                        : Mono.just(updated))
+                .doOnNext(updated -> {
+                    if (updated > 0) {
+                        evictUpdatedBeer(beerId, previous, beer);
                     }
-                    return Mono.just(updateBeer);
-                }).map(beerMapper::beerToBeerDto);
+                })
+                .flatMap(updated -> updated > 0
+                        ? replicate(beerId).then(beerCatalogVersion.changed()).thenReturn(updated)
+                        : Mono.just(updated)));
     }
 
+    private Mono<Void> replicate(Integer beerId) {
+        // the update does not read the row back, the replica needs its new version
+        if (!beerCatalogReplica.isEnabled()) {
+            return Mono.empty();
+        }
+
+        return beerRepository.findById(beerId)
+                .map(beerMapper::beerToBeerDto)
+                .doOnNext(beerCatalogReplica::put)
+                .then();
+    }
 
-    @Cacheable(cacheNames = "beerUpcCache")
     @Override
     public Mono<BeerDto> getByUpc(String upc) {
-        return beerRepository.findByUpc(upc).map(beerMapper::beerToBeerDto);
+        if (beerCatalogReplica.isServing()) {
+            return beerServiceTimer.lookup(() -> tags("getByUpc", CACHE_REPLICA), Mono.justOrEmpty(beerCatalogReplica.findByUpc(upc)));
+        }
+
+        final var cacheResult = new AtomicReference<>(CACHE_HIT);
+
+        return beerServiceTimer.lookup(() -> tags("getByUpc", cacheResult.get()), beerUpcCache.get(upc, cacheKey -> {
+            cacheResult.set(CACHE_MISS);
+            return beerByUpcFlight.execute(cacheKey, key -> beerRepository.findByUpc(key).map(beerMapper::beerToBeerDto));
+        }));
     }
 
     @Override
-    public void deleteBeerById(Integer beerId) {
-        beerRepository.deleteById(beerId).subscribe();
+    public Mono<Void> deleteBeerById(Integer beerId) {
+        return beerServiceTimer.command(tags("deleteBeerById", CACHE_NONE), beerRepository.findById(beerId)
+                .switchIfEmpty(Mono.error(new NotFoundException()))
+                .flatMap(beer -> beerRepository.deleteById(beer.getId())
+                        .doOnSuccess(deleted -> evictBeer(beer))
+                        .then(beerCatalogVersion.changed())));
     }
 
     @Override
-    public Mono<Void> reactiveDeleteBeerId(Integer beerId) {
-        return beerRepository.findById(beerId)
-                // maybe findById throws NotFoundException first... that's why the test calls the throwable consumer
-                .onErrorResume(e -> e instanceof Exception,
-                        e -> {
-                    System.out.println("BOO!" + e);
-                    return Mono.empty();
-                        })
-                .switchIfEmpty(Mono.error(new NotFoundException()))
-                .map(beer -> {
-                    return beer.getId();
-                }).flatMap(idFound -> beerRepository.deleteById(idFound));
+    public Mono<Integer> deleteBeersById(Collection<Integer> beerIds) {
+        // the beers are read first so their UPC and list entries can be evicted once the rows are gone
+        return beerServiceTimer.command(tags("deleteBeersById", CACHE_NONE), beerRepository.findAllById(beerIds)
+                .collectList()
+                .flatMap(beers -> beerBulkRepository.deleteAllById(beerIds)
+                        .doOnNext(deleted -> beers.forEach(this::evictBeer))
+                        .flatMap(deleted -> beerCatalogVersion.changed().thenReturn(deleted))));
+    }
+
+    @Override
+    public String getCatalogVersion() {
+        return beerCatalogVersion.current();
+    }
+
+    private void cacheNewBeer(BeerDto savedDto) {
+        beerByIdFlight.forget(savedDto.getId());
+        beerCache.put(savedDto.getId(), savedDto);
+        cacheByUpc(savedDto);
+        evictListPages(savedDto.getBeerName(), beerStyleOf(savedDto));
+        beerNameIndex.put(savedDto.getId(), savedDto.getBeerName(), savedDto.getBeerStyle());
+        beerCatalogReplica.put(savedDto);
+    }
+
+    private void evictUpdatedBeer(Integer beerId, BeerDto previous, Beer updated) {
+        // the update does not read the row back, so entries are evicted rather than replaced
+        beerByIdFlight.forget(beerId);
+        beerCache.evict(beerId);
+        beerUpcCache.evictValuesIf(beerDto -> beerId.equals(beerDto.getId()));
+
+        if (updated.getUpc() != null) {
+            beerByUpcFlight.forget(updated.getUpc());
+        }
+
+        if (previous != null) {
+            if (previous.getUpc() != null) {
+                beerByUpcFlight.forget(previous.getUpc());
+            }
+            evictListPages(previous.getBeerName(), beerStyleOf(previous));
+        } else {
+            // without the previous name and style any filtered page could have held the beer
+            beerListCache.invalidateAll();
+            beerCountCache.invalidateAll();
+        }
+
+        evictListPages(updated.getBeerName(), updated.getBeerStyle());
+        beerNameIndex.put(updated);
+    }
+
+    private void cacheByUpc(BeerDto beerDto) {
+        if (beerDto.getUpc() != null) {
+            beerByUpcFlight.forget(beerDto.getUpc());
+            beerUpcCache.put(beerDto.getUpc(), beerDto);
+        }
+    }
+
+    private void evictBeer(Beer beer) {
+        beerByIdFlight.forget(beer.getId());
+        beerCache.evict(beer.getId());
+
+        if (beer.getUpc() != null) {
+            beerByUpcFlight.forget(beer.getUpc());
+            beerUpcCache.evict(beer.getUpc());
+        }
+
+        evictListPages(beer.getBeerName(), beer.getBeerStyle());
+        beerNameIndex.remove(beer.getId());
+        beerCatalogReplica.remove(beer.getId());
+    }
+
+    private void evictListPages(String beerName, BeerStyleEnum beerStyle) {
+        beerListCache.evictIf(key -> key.matches(beerName, beerStyle));
+        beerCountCache.evictIf(filter -> filter.matches(beerName, beerStyle));
+    }
+
+    private static Tags tags(String operation, String cache) {
+        return Tags.of("operation", operation, "cache", cache);
+    }
+
+    private static BeerStyleEnum beerStyleOf(BeerDto beerDto) {
+        return beerDto.getBeerStyle() != null ? BeerStyleEnum.valueOf(beerDto.getBeerStyle()) : null;
     }
 }
@@ -0,0 +1,35 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * Writes each span as a key=value line to the tracing logger, which goes through the asynchronous console
+ * appender. Enough to follow a trace locally; a collector would plug in as another SpanExporter bean.
+ */
+@Slf4j(topic = LoggingSpanExporter.LOGGER)
+public class LoggingSpanExporter implements SpanExporter {
+
+    public static final String LOGGER = "guru.springframework.sfgrestbrewery.tracing";
+
+    @Override
+    public void export(SpanData span) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+
+        final var line = new StringBuilder("span name=").append(span.getName())
+                .append(" trace=").append(span.getTraceId())
+                .append(" span=").append(span.getSpanId())
+                .append(" parent=").append(span.getParentSpanId() != null ? span.getParentSpanId() : "-")
+                .append(" start_us=").append(span.getStartEpochMicros())
+                .append(" duration_us=").append(span.getDurationNanos() / 1_000);
+
+        for (Map.Entry<String, String> tag : span.getTags().entrySet()) {
+            line.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+        }
+
+        log.info(line.toString());
+    }
+}
@@ -0,0 +1,34 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+import lombok.Getter;
+
+/**
+ * A span that has started and not yet ended. It is carried in the Reactor Context of the work it covers, so the
+ * spans started further upstream become its children.
+ */
+@Getter
+public final class Span {
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startEpochMicros;
+    private final long startNanos;
+
+    Span(String traceId, String spanId, String parentSpanId, String name) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.startEpochMicros = System.currentTimeMillis() * 1_000;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * The W3C traceparent header naming this span as the parent, with the sampled flag set.
+     */
+    public String toTraceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+}
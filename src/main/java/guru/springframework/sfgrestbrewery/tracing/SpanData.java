@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A span that has ended, as handed to the SpanExporter.
+ */
+@Value
+@Builder
+public class SpanData {
+
+    String traceId;
+    String spanId;
+    String parentSpanId;
+    String name;
+    long startEpochMicros;
+    long durationNanos;
+    Map<String, String> tags;
+}
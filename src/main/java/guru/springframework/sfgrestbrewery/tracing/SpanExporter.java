@@ -0,0 +1,10 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+/**
+ * Receives every span of a sampled trace as it ends. Called on the thread that ended the span, so an exporter
+ * must hand the span off rather than do I/O itself.
+ */
+public interface SpanExporter {
+
+    void export(SpanData span);
+}
@@ -0,0 +1,111 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Starts and ends spans. A trace starts with a root span for an http request, which is sampled if the caller's
+ * traceparent header says so or, without one, at the sample rate. Every other span is the child of the span in
+ * the Reactor Context and is only started inside a sampled trace, so unsampled work costs a context lookup.
+ */
+public class Tracer {
+
+    public static final Tracer NOOP = new Tracer(null, 0);
+
+    private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+
+    private final SpanExporter exporter;
+    private final double sampleRate;
+
+    public Tracer(SpanExporter exporter, double sampleRate) {
+        this.exporter = exporter;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Starts the root span of a request, continuing the trace of a W3C traceparent header if there is one.
+     * Returns null when the trace is not sampled.
+     */
+    public Span startRoot(String name, String traceparent) {
+        if (exporter == null) {
+            return null;
+        }
+
+        if (traceparent != null) {
+            final var matcher = TRACEPARENT.matcher(traceparent.trim());
+
+            if (matcher.matches() && !INVALID_TRACE_ID.equals(matcher.group(1)) && !INVALID_SPAN_ID.equals(matcher.group(2))) {
+                final var sampled = (Integer.parseInt(matcher.group(3), 16) & 1) == 1;
+                return sampled ? new Span(matcher.group(1), newId(), matcher.group(2), name) : null;
+            }
+        }
+
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+
+        return new Span(newId() + newId(), newId(), null, name);
+    }
+
+    /**
+     * Starts a child of the span in the context, or returns null if there is none.
+     */
+    public Span startChild(ContextView context, String name) {
+        final var parent = current(context);
+
+        if (exporter == null || parent == null) {
+            return null;
+        }
+
+        return new Span(parent.getTraceId(), newId(), parent.getSpanId(), name);
+    }
+
+    public void end(Span span, Tags tags) {
+        final var tagMap = new LinkedHashMap<String, String>();
+
+        for (Tag tag : tags) {
+            tagMap.put(tag.getKey(), tag.getValue());
+        }
+
+        exporter.export(SpanData.builder()
+                .traceId(span.getTraceId())
+                .spanId(span.getSpanId())
+                .parentSpanId(span.getParentSpanId())
+                .name(span.getName())
+                .startEpochMicros(span.getStartEpochMicros())
+                .durationNanos(System.nanoTime() - span.getStartNanos())
+                .tags(tagMap)
+                .build());
+    }
+
+    public static Span current(ContextView context) {
+        return context.getOrDefault(Span.class, null);
+    }
+
+    /**
+     * Puts the span in the context of everything upstream, for contextWrite.
+     */
+    public static Function<Context, Context> with(Span span) {
+        return context -> context.put(Span.class, span);
+    }
+
+    private static String newId() {
+        long id;
+
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+
+        final var hex = Long.toHexString(id);
+        return INVALID_SPAN_ID.substring(hex.length()) + hex;
+    }
+}
@@ -0,0 +1,48 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spans the handler function of a route, up to the response it returns. The response body is written after
+ * that, so the gap between this span and the request span is serialization.
+ */
+public class TracingHandlerFilter implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    public static final String HANDLER_SPAN = "beer.handler";
+
+    private final Tracer tracer;
+
+    public TracingHandlerFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        return Mono.deferContextual(context -> {
+            final var span = tracer.startChild(context, HANDLER_SPAN);
+
+            if (span == null) {
+                return next.handle(request);
+            }
+
+            final var route = request.attribute(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE)
+                    .map(pattern -> ((PathPattern) pattern).getPatternString())
+                    .orElse(request.path());
+            final var tags = Tags.of("route", route);
+
+            return next.handle(request)
+                    .doOnSuccess(response -> tracer.end(span, tags.and("status",
+                            response != null ? String.valueOf(response.rawStatusCode()) : "none")))
+                    .doOnError(e -> tracer.end(span, tags.and("error", e.getClass().getSimpleName())))
+                    .doOnCancel(() -> tracer.end(span, tags.and("status", "cancelled")))
+                    .contextWrite(Tracer.with(span));
+        });
+    }
+}
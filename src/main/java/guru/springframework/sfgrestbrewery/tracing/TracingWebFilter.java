@@ -0,0 +1,48 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Starts the root span of every sampled http request and puts it in the Reactor Context of the request. The
+ * traceparent of the root span is returned in the response, so a client can find the trace of its call.
+ */
+public class TracingWebFilter implements WebFilter {
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String HTTP_SPAN = "http.request";
+
+    private final Tracer tracer;
+
+    public TracingWebFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final var span = tracer.startRoot(HTTP_SPAN, exchange.getRequest().getHeaders().getFirst(TRACEPARENT));
+
+        if (span == null) {
+            return chain.filter(exchange);
+        }
+
+        exchange.getResponse().getHeaders().set(TRACEPARENT, span.toTraceparent());
+
+        return chain.filter(exchange)
+                .doFinally(signal -> tracer.end(span, tags(exchange, signal)))
+                .contextWrite(Tracer.with(span));
+    }
+
+    private static Tags tags(ServerWebExchange exchange, SignalType signal) {
+        final var request = exchange.getRequest();
+        final var status = exchange.getResponse().getRawStatusCode();
+
+        return Tags.of("method", request.getMethodValue(),
+                "path", request.getURI().getRawPath(),
+                "status", signal == SignalType.CANCEL ? "cancelled" : String.valueOf(status != null ? status : 200));
+    }
+}
@@ -1,21 +1,27 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
 import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursorPage;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.relational.core.sql.Not;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -28,6 +34,9 @@ public class BeerController {
 
     private static final Integer DEFAULT_PAGE_NUMBER = 0;
     private static final Integer DEFAULT_PAGE_SIZE = 25;
+    private static final Integer MAX_PAGE_SIZE = 100;
+    private static final Integer DEFAULT_SEARCH_LIMIT = 10;
+    private static final Integer MAX_SEARCH_LIMIT = 100;
 
     private final BeerService beerService;
 
@@ -50,7 +59,44 @@ public class BeerController {
             pageSize = DEFAULT_PAGE_SIZE;
         }
 
-        return ResponseEntity.ok(beerService.listBeers(beerName, beerStyle, PageRequest.of(pageNumber, pageSize), showInventoryOnHand));
+        // tagged before the page is read, so a client that is up to date gets a 304 without the page being loaded
+        return okWithETag(showInventoryOnHand ? null : BeerETags.forCatalog(beerService.getCatalogVersion()))
+                .body(beerService.listBeers(beerName, beerStyle, PageRequest.of(pageNumber, pageSize), showInventoryOnHand));
+    }
+
+    @GetMapping(produces = {"application/json"}, path = "beerCursor")
+    public ResponseEntity<Mono<BeerCursorPage>> listBeersAfter(@RequestParam(value = "cursor", required = false) String cursor,
+                                                               @RequestParam(value = "sortBy", required = false) BeerCursor.SortKey sortBy,
+                                                               @RequestParam(value = "pageSize", required = false) Integer pageSize,
+                                                               @RequestParam(value = "beerStyle", required = false) BeerStyleEnum beerStyle,
+                                                               @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand) {
+
+        if (showInventoryOnHand == null) {
+            showInventoryOnHand = false;
+        }
+
+        if (pageSize == null || pageSize < 1) {
+            pageSize = DEFAULT_PAGE_SIZE;
+        }
+
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        final var beerCursor = cursor != null ? BeerCursor.decode(cursor)
+                : BeerCursor.start(sortBy != null ? sortBy : BeerCursor.SortKey.ID);
+
+        return okWithETag(showInventoryOnHand ? null : BeerETags.forCatalog(beerService.getCatalogVersion()))
+                .body(beerService.listBeersAfter(beerStyle, beerCursor, pageSize, showInventoryOnHand));
+    }
+
+    @GetMapping(produces = {"application/json"}, path = "beerSearch")
+    public ResponseEntity<Flux<BeerSuggestion>> searchBeers(@RequestParam("query") String query,
+                                                            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        if (limit == null || limit < 1) {
+            limit = DEFAULT_SEARCH_LIMIT;
+        }
+
+        return ResponseEntity.ok(beerService.searchBeers(query, Math.min(limit, MAX_SEARCH_LIMIT)));
     }
 
     @ExceptionHandler
@@ -58,60 +104,69 @@ public class BeerController {
         return ResponseEntity.notFound().build();
     }
 
+    @ExceptionHandler({OptimisticLockingFailureException.class, DataIntegrityViolationException.class})
+    ResponseEntity<Void> handleConflict(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
     @GetMapping("beer/{beerId}")
-    public ResponseEntity<Mono<BeerDto>> getBeerById(@PathVariable("beerId") Integer beerId,
+    public Mono<ResponseEntity<BeerDto>> getBeerById(@PathVariable("beerId") Integer beerId,
                                                      @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand) {
-        if (showInventoryOnHand == null) {
-            showInventoryOnHand = false;
-        }
+        final var showInventory = showInventoryOnHand != null && showInventoryOnHand;
 
-        return ResponseEntity.ok(beerService.getById(beerId, showInventoryOnHand).defaultIfEmpty(BeerDto.builder().build()).doOnNext(beerDto -> {
-            if (beerDto.getId() == null) {
-                throw new NotFoundException();
-            }
-        }));
+        // the quantity on hand changes without the version, so those responses carry no ETag
+        return beerService.getById(beerId, showInventory)
+                .map(beerDto -> okWithETag(showInventory ? null : BeerETags.forBeer(beerDto)).body(beerDto))
+                .switchIfEmpty(Mono.error(NotFoundException::new));
     }
 
     @GetMapping("beerUpc/{upc}")
-    public ResponseEntity<Mono<BeerDto>> getBeerByUpc(@PathVariable("upc") String upc) {
-        return ResponseEntity.ok(beerService.getByUpc(upc));
+    public Mono<ResponseEntity<BeerDto>> getBeerByUpc(@PathVariable("upc") String upc) {
+        return beerService.getByUpc(upc)
+                .map(beerDto -> okWithETag(BeerETags.forBeer(beerDto)).body(beerDto));
+    }
+
+    /**
+     * A 200 with the ETag, if there is one. For a GET whose If-None-Match matches it, Spring answers 304 instead
+     * and never subscribes to the body.
+     */
+    private static ResponseEntity.BodyBuilder okWithETag(String etag) {
+        final var ok = ResponseEntity.ok();
+        return etag != null ? ok.eTag(etag) : ok;
     }
 
     @PostMapping(path = "beer")
-    public ResponseEntity<Void> saveNewBeer(@RequestBody @Validated BeerDto beerDto) {
-        AtomicInteger atomicIntegerBeerId = new AtomicInteger();
-        beerService.saveNewBeer(beerDto).subscribe(savedBeerDto -> atomicIntegerBeerId.set(savedBeerDto.getId()));
-
-        return ResponseEntity
-                .created(UriComponentsBuilder
-                        .fromHttpUrl("http://api.springframework.guru/api/v1/beer/" + atomicIntegerBeerId.get())
-                        .build().toUri())
-                .build();
+    public Mono<ResponseEntity<Void>> saveNewBeer(@RequestBody @Validated BeerDto beerDto) {
+        return beerService.saveNewBeer(beerDto)
+                .map(savedBeerDto -> ResponseEntity
+                        .created(UriComponentsBuilder
+                                .fromHttpUrl("http://api.springframework.guru/api/v1/beer/" + savedBeerDto.getId())
+                                .build().toUri())
+                        .build());
     }
 
     @PutMapping("beer/{beerId}")
-    public ResponseEntity<Void> updateBeerById(@PathVariable("beerId") Integer beerId, @RequestBody @Validated BeerDto beerDto) {
-        final var updatedId = new AtomicBoolean(false);
-        beerService.updateBeer(beerId, beerDto).subscribe(updatedDto ->
-        {
-            if (updatedDto.getId() != null) {
-                updatedId.set(true);
-            }
-        });
-        if (updatedId.get()) {
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
-
+    public Mono<ResponseEntity<Void>> updateBeerById(@PathVariable("beerId") Integer beerId, @RequestBody @Validated BeerDto beerDto) {
+        return beerService.updateBeer(beerId, beerDto)
+                .map(updated -> updated > 0
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
     }
 
     @DeleteMapping("beer/{beerId}")
-    public ResponseEntity<Void> deleteBeerById(@PathVariable("beerId") Integer beerId) {
+    public Mono<ResponseEntity<Void>> deleteBeerById(@PathVariable("beerId") Integer beerId) {
+        return beerService.deleteBeerById(beerId)
+                .thenReturn(ResponseEntity.noContent().build());
+    }
 
-        beerService.deleteBeerById(beerId);
+    @DeleteMapping("beer")
+    public Mono<ResponseEntity<Integer>> deleteBeersById(@RequestParam("ids") List<Integer> beerIds) {
+        // bounded like a listing page, since every beer is loaded and evicted before the delete
+        if (beerIds.size() > MAX_PAGE_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
 
-        return ResponseEntity.noContent().build();
+        return beerService.deleteBeersById(beerIds).map(ResponseEntity::ok);
     }
 
 }
@@ -0,0 +1,27 @@
+package guru.springframework.sfgrestbrewery.web.controller;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+
+/**
+ * Strong ETags of beer responses without the quantity on hand. Every write to a beer row bumps its version, so
+ * id and version identify a single beer; list pages are tagged with the catalog version.
+ */
+public final class BeerETags {
+
+    private BeerETags() {
+    }
+
+    /**
+     * Returns null for a beer without a version.
+     */
+    public static String forBeer(BeerDto beer) {
+        return beer.getVersion() != null ? "\"beer-" + beer.getId() + "-" + beer.getVersion() + "\"" : null;
+    }
+
+    /**
+     * Returns null without a catalog version.
+     */
+    public static String forCatalog(String catalogVersion) {
+        return catalogVersion != null ? "\"catalog-" + catalogVersion + "\"" : null;
+    }
+}
@@ -1,42 +1,139 @@
 package guru.springframework.sfgrestbrewery.web.functional;
 
+import guru.springframework.sfgrestbrewery.cache.BeerJsonCache;
+import guru.springframework.sfgrestbrewery.services.BeerIngestService;
+import guru.springframework.sfgrestbrewery.services.BeerInventoryService;
 import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.controller.BeerETags;
 import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
 import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerIngestResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdate;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdateResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Validator;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class BeerHandlerV2 {
+    private static final int DEFAULT_PAGE_SIZE = 25;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     private final BeerMapper beerMapper;
 
     private final BeerService beerService;
+    private final BeerIngestService beerIngestService;
+    private final BeerInventoryService beerInventoryService;
     private final Validator validator;
+    private final BeerJsonCache beerJsonCache;
 
     public Mono<ServerResponse> beerById(ServerRequest serverRequest) {
         final var beerId = Integer.valueOf(serverRequest.pathVariable("beerId"));
         final var showInventory = Boolean.valueOf(serverRequest.queryParam("showInventory").orElse("false"));
 
+        // the quantity on hand changes with every order, its responses are not worth keeping
         return beerService.getById(beerId, showInventory)
-                .flatMap(beerDto -> ServerResponse.ok().bodyValue(beerDto)).switchIfEmpty(ServerResponse.notFound().build());
+                .flatMap(beerDto -> showInventory ? ServerResponse.ok().bodyValue(beerDto) : beerResponse(serverRequest, beerDto))
+                .switchIfEmpty(ServerResponse.notFound().build());
     }
 
     public Mono<ServerResponse> beerByUpc(ServerRequest serverRequest) {
         final var upc = String.valueOf(serverRequest.pathVariable("upc"));
 
         return beerService.getByUpc(upc)
-                .flatMap(beerDto -> ServerResponse.ok().bodyValue(beerDto)).switchIfEmpty(ServerResponse.notFound().build());
+                .flatMap(beerDto -> beerResponse(serverRequest, beerDto)).switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private Mono<ServerResponse> beerResponse(ServerRequest serverRequest, BeerDto beerDto) {
+        final var etag = BeerETags.forBeer(beerDto);
+        final var response = Mono.defer(() -> beerBody(beerDto, etag));
+
+        return etag != null ? serverRequest.checkNotModified(etag).switchIfEmpty(response) : response;
+    }
+
+    private Mono<ServerResponse> beerBody(BeerDto beerDto, String etag) {
+        if (!beerJsonCache.isEnabled()) {
+            final var ok = ServerResponse.ok();
+            return (etag != null ? ok.eTag(etag) : ok).bodyValue(beerDto);
+        }
+
+        final var rendered = beerJsonCache.render(beerDto);
+
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(rendered.getEtag())
+                .body(BodyInserters.fromDataBuffers(Mono.fromSupplier(() -> DefaultDataBufferFactory.sharedInstance.wrap(rendered.getJson()))));
+    }
+
+    public Mono<ServerResponse> listBeersAfter(ServerRequest serverRequest) {
+        final var cursor = serverRequest.queryParam("cursor").map(BeerCursor::decode)
+                .orElseGet(() -> BeerCursor.start(serverRequest.queryParam("sortBy")
+                        .map(sortBy -> parseEnum(BeerCursor.SortKey.class, sortBy)).orElse(BeerCursor.SortKey.ID)));
+        final var beerStyle = serverRequest.queryParam("beerStyle").map(style -> parseEnum(BeerStyleEnum.class, style)).orElse(null);
+        final var pageSize = Math.min(serverRequest.queryParam("pageSize").map(BeerHandlerV2::parseInt)
+                .filter(size -> size > 0).orElse(DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        final var showInventory = Boolean.valueOf(serverRequest.queryParam("showInventory").orElse("false"));
+
+        if (showInventory) {
+            return beerService.listBeersAfter(beerStyle, cursor, pageSize, true)
+                    .flatMap(beerCursorPage -> ServerResponse.ok().bodyValue(beerCursorPage));
+        }
+
+        // tagged before the page is read, so a client that is up to date gets a 304 without the page being loaded
+        final var etag = BeerETags.forCatalog(beerService.getCatalogVersion());
+
+        return serverRequest.checkNotModified(etag)
+                .switchIfEmpty(Mono.defer(() -> beerService.listBeersAfter(beerStyle, cursor, pageSize, false)
+                        .flatMap(beerCursorPage -> ServerResponse.ok().eTag(etag).bodyValue(beerCursorPage))));
+    }
+
+    public Mono<ServerResponse> searchBeers(ServerRequest serverRequest) {
+        final var query = serverRequest.queryParam("query").orElseThrow(() -> new ServerWebInputException("Missing query"));
+        final var limit = serverRequest.queryParam("limit").map(BeerHandlerV2::parseInt).filter(size -> size > 0).orElse(DEFAULT_SEARCH_LIMIT);
+
+        return ServerResponse.ok().body(beerService.searchBeers(query, Math.min(limit, MAX_SEARCH_LIMIT)), BeerSuggestion.class);
+    }
+
+    public Mono<ServerResponse> exportBeers(ServerRequest serverRequest) {
+        return export(serverRequest, MediaType.APPLICATION_NDJSON);
+    }
+
+    public Mono<ServerResponse> exportBeersAsEvents(ServerRequest serverRequest) {
+        return export(serverRequest, MediaType.TEXT_EVENT_STREAM);
+    }
+
+    private Mono<ServerResponse> export(ServerRequest serverRequest, MediaType mediaType) {
+        final var beerStyle = serverRequest.queryParam("beerStyle").map(style -> parseEnum(BeerStyleEnum.class, style)).orElse(null);
+        final var showInventory = Boolean.valueOf(serverRequest.queryParam("showInventory").orElse("false"));
+
+        return ServerResponse.ok()
+                .contentType(mediaType)
+                .body(beerService.streamBeers(beerStyle, showInventory), BeerDto.class);
     }
 
     public Mono<ServerResponse> newBeer(ServerRequest serverRequest) {
@@ -45,31 +142,108 @@ public class BeerHandlerV2 {
         return beerService.saveNewBeer(beerDtoMono)
                 .flatMap(beerDto ->  {
                     return ServerResponse.ok().header("Location", BeerRouterConfig.BEER_V2_URL + "/" + beerDto.getId()).build();
-                });
+                }).onErrorResume(DataIntegrityViolationException.class, e -> ServerResponse.status(HttpStatus.CONFLICT).build());
+    }
+
+    public Mono<ServerResponse> ingestBeers(ServerRequest serverRequest) {
+        // accepts a JSON array or NDJSON; results are streamed back as NDJSON if the client asks for it
+        final var mediaType = serverRequest.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+
+        return ServerResponse.ok()
+                .contentType(mediaType)
+                .body(beerIngestService.ingestBeers(serverRequest.bodyToFlux(BeerDto.class)), BeerIngestResult.class);
+    }
+
+    public Mono<ServerResponse> updateStock(ServerRequest serverRequest) {
+        // same content negotiation as ingestBeers; one result is emitted per applied batch
+        final var mediaType = serverRequest.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+
+        return ServerResponse.ok()
+                .contentType(mediaType)
+                .body(beerInventoryService.applyStockUpdates(serverRequest.bodyToFlux(BeerStockUpdate.class)), BeerStockUpdateResult.class);
+    }
+
+    public Mono<ServerResponse> reserveStock(ServerRequest serverRequest) {
+        final var beerId = Integer.valueOf(serverRequest.pathVariable("beerId"));
+
+        return beerInventoryService.reserve(beerId, quantity(serverRequest))
+                .flatMap(reserved -> reserved ? ServerResponse.noContent().build() : ServerResponse.status(HttpStatus.CONFLICT).build())
+                .onErrorResume(e -> e instanceof NotFoundException, e -> ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> releaseStock(ServerRequest serverRequest) {
+        final var beerId = Integer.valueOf(serverRequest.pathVariable("beerId"));
+
+        return beerInventoryService.release(beerId, quantity(serverRequest))
+                .then(ServerResponse.noContent().build())
+                .onErrorResume(e -> e instanceof NotFoundException, e -> ServerResponse.notFound().build());
+    }
+
+    private static int quantity(ServerRequest serverRequest) {
+        final var quantity = serverRequest.queryParam("quantity").map(BeerHandlerV2::parseInt).orElse(1);
+
+        if (quantity < 1) {
+            throw new ServerWebInputException("Invalid quantity: " + quantity);
+        }
+
+        return quantity;
     }
 
     public Mono<ServerResponse> updateBeer(ServerRequest serverRequest) {
         return serverRequest.bodyToMono(BeerDto.class).doOnNext(this::validate)
                 .flatMap(beerDto -> {
                     return beerService.updateBeer(Integer.valueOf(serverRequest.pathVariable("beerId")), beerDto);
-                }).flatMap(savedBeerDto -> {
-                    if (savedBeerDto.getId() != null) {
-                        log.debug("Saved Beer Id: {}", savedBeerDto.getId());
+                }).flatMap(updated -> {
+                    if (updated > 0) {
+                        log.debug("Saved Beer Id: {}", serverRequest.pathVariable("beerId"));
                         return ServerResponse.noContent().build();
                     } else {
                         log.debug("Beer Id: {} Not Found", serverRequest.pathVariable("beerId"));
                         return ServerResponse.notFound().build();
                     }
-                });
+                }).onErrorResume(e -> e instanceof OptimisticLockingFailureException || e instanceof DataIntegrityViolationException,
+                        e -> ServerResponse.status(HttpStatus.CONFLICT).build());
     }
 
     public Mono<ServerResponse> deleteBeer(ServerRequest serverRequest) {
         final var beerId = Integer.valueOf(serverRequest.pathVariable("beerId"));
 
-        return beerService.reactiveDeleteBeerId(beerId)
-                .flatMap(voidMono -> {
-                    return ServerResponse.notFound().build();
-                }).onErrorResume(e -> e instanceof NotFoundException, e -> ServerResponse.notFound().build());
+        return beerService.deleteBeerById(beerId)
+                .then(ServerResponse.noContent().build())
+                .onErrorResume(e -> e instanceof NotFoundException, e -> ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> deleteBeers(ServerRequest serverRequest) {
+        final var beerIds = serverRequest.queryParams().getOrDefault("ids", List.of()).stream()
+                .flatMap(ids -> Arrays.stream(ids.split(",")))
+                .map(BeerHandlerV2::parseInt)
+                .collect(Collectors.toList());
+
+        // the beers are read into memory and evicted one by one, so a request deletes at most a page of them
+        if (beerIds.size() > MAX_PAGE_SIZE) {
+            throw new ServerWebInputException("At most " + MAX_PAGE_SIZE + " ids per request, got " + beerIds.size());
+        }
+
+        return beerService.deleteBeersById(beerIds)
+                .flatMap(deleted -> ServerResponse.ok().bodyValue(deleted));
+    }
+
+    private static Integer parseInt(String value) {
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid value: " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> enumType, String value) {
+        try {
+            return Enum.valueOf(enumType, value);
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException("Invalid value: " + value);
+        }
     }
 
     private void validate(BeerDto beerDto) {
@@ -1,5 +1,7 @@
 package guru.springframework.sfgrestbrewery.web.functional;
 
+import guru.springframework.sfgrestbrewery.tracing.Tracer;
+import guru.springframework.sfgrestbrewery.tracing.TracingHandlerFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
@@ -7,6 +9,7 @@ import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
 import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 
 @Configuration
@@ -14,15 +17,32 @@ public class BeerRouterConfig {
 
     public static final String BEER_V2_URL = "/api/v2/beer";
     public static final String BEER_V2_URL_BEER_ID = BEER_V2_URL + "/{beerId}";
+    public static final String BEER_V2_URL_RESERVE = BEER_V2_URL_BEER_ID + "/reserve";
+    public static final String BEER_V2_URL_RELEASE = BEER_V2_URL_BEER_ID + "/release";
     public static final String BEER_V2_URL_UPC= "/api/v2/beerUpc/{upc}";
+    public static final String BEER_V2_URL_CURSOR = "/api/v2/beerCursor";
+    public static final String BEER_V2_URL_SEARCH = "/api/v2/beerSearch";
+    public static final String BEER_V2_URL_EXPORT = "/api/v2/beerExport";
+    public static final String BEER_V2_URL_BULK = "/api/v2/beerBulk";
+    public static final String BEER_V2_URL_STOCK = "/api/v2/beerStock";
 
     @Bean
-    public RouterFunction<ServerResponse> beerRoutesV2(BeerHandlerV2 handler) {
+    public RouterFunction<ServerResponse> beerRoutesV2(BeerHandlerV2 handler, Tracer tracer) {
         return route().GET(BEER_V2_URL_BEER_ID, accept(MediaType.APPLICATION_JSON), handler::beerById)
+                .GET(BEER_V2_URL_CURSOR, accept(MediaType.APPLICATION_JSON), handler::listBeersAfter)
+                .GET(BEER_V2_URL_SEARCH, accept(MediaType.APPLICATION_JSON), handler::searchBeers)
+                .GET(BEER_V2_URL_EXPORT, accept(MediaType.APPLICATION_NDJSON), handler::exportBeers)
+                .GET(BEER_V2_URL_EXPORT, accept(MediaType.TEXT_EVENT_STREAM), handler::exportBeersAsEvents)
                 .GET(BEER_V2_URL_UPC, accept(MediaType.APPLICATION_JSON), handler::beerByUpc)
                 .POST(BEER_V2_URL, accept(MediaType.APPLICATION_JSON), handler::newBeer)
+                .POST(BEER_V2_URL_BULK, handler::ingestBeers)
+                .POST(BEER_V2_URL_STOCK, handler::updateStock)
+                .POST(BEER_V2_URL_RESERVE, handler::reserveStock)
+                .POST(BEER_V2_URL_RELEASE, handler::releaseStock)
                 .PUT(BEER_V2_URL_BEER_ID, accept(MediaType.APPLICATION_JSON), handler::updateBeer)
                 .DELETE(BEER_V2_URL_BEER_ID, accept(MediaType.APPLICATION_JSON), handler::deleteBeer)
+                .DELETE(BEER_V2_URL, queryParam("ids", ids -> true), handler::deleteBeers)
+                .filter(new TracingHandlerFilter(tracer))
                 .build();
     }
 
@@ -0,0 +1,59 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.Value;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated beer listing. Serialized to clients as an opaque continuation token.
+ * A cursor without an id points at the start of the listing.
+ */
+@Value
+public class BeerCursor {
+
+    public enum SortKey {
+        ID, NAME
+    }
+
+    SortKey sortKey;
+    String beerName;
+    Integer id;
+
+    public static BeerCursor start(SortKey sortKey) {
+        return new BeerCursor(sortKey, null, null);
+    }
+
+    public static BeerCursor after(SortKey sortKey, BeerDto beerDto) {
+        return new BeerCursor(sortKey, sortKey == SortKey.NAME ? beerDto.getBeerName() : null, beerDto.getId());
+    }
+
+    public boolean isStart() {
+        return id == null;
+    }
+
+    public String encode() {
+        final var raw = sortKey == SortKey.NAME ? "N|" + id + "|" + beerName : "I|" + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BeerCursor decode(String token) {
+        try {
+            final var parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 3);
+
+            if (parts.length == 2 && "I".equals(parts[0])) {
+                return new BeerCursor(SortKey.ID, null, Integer.valueOf(parts[1]));
+            }
+
+            if (parts.length == 3 && "N".equals(parts[0])) {
+                return new BeerCursor(SortKey.NAME, parts[2], Integer.valueOf(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the invalid cursor error below
+        }
+
+        throw new ServerWebInputException("Invalid cursor: " + token);
+    }
+}
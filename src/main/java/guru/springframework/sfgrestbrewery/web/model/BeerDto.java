@@ -36,6 +36,8 @@ public class BeerDto {
 
     private Integer quantityOnHand;
 
+    private Long version;
+
     private LocalDateTime createdDate;
     private LocalDateTime lastUpdatedDate;
 }
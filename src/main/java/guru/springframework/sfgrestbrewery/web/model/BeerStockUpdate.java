@@ -0,0 +1,27 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Price and inventory change for one beer, identified by id or, if id is null, by upc.
+ * price replaces the current price when set; quantityOnHandDelta is added to the quantity on hand.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerStockUpdate {
+
+    private Integer id;
+
+    private String upc;
+
+    private BigDecimal price;
+
+    private Integer quantityOnHandDelta;
+}
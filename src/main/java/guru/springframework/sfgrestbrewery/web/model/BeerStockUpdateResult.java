@@ -0,0 +1,43 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one batch window of a bulk stock update.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerStockUpdateResult {
+
+    /**
+     * Records received in the window, including rejected ones.
+     */
+    private int records;
+
+    /**
+     * Records without an id or upc, without a price or quantity delta, or with a negative price.
+     */
+    private int rejected;
+
+    /**
+     * Distinct beers left after coalescing the valid records.
+     */
+    private int beers;
+
+    /**
+     * Rows changed; less than beers if some ids or upcs do not exist or have too little stock.
+     */
+    private int updated;
+
+    /**
+     * Beers left unchanged, price included, because their quantity delta would take the stock below zero.
+     */
+    private int insufficientStock;
+
+    private String error;
+}
@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A beer matching a name search, with just enough to render a typeahead entry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerSuggestion {
+
+    private Integer id;
+
+    private String beerName;
+
+    private String beerStyle;
+}
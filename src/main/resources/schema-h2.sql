@@ -0,0 +1,30 @@
+CREATE TABLE IF NOT EXISTS beer (
+id integer NOT NULL PRIMARY KEY AUTO_INCREMENT,
+beer_name varchar2(255),
+beer_style varchar2(255),
+upc varchar2(25),
+quantity_on_hand integer,
+version bigint DEFAULT 0 NOT NULL,
+price decimal(10, 2),
+created_date timestamp,
+last_modified_date timestamp
+);
+
+-- findByUpc
+CREATE UNIQUE INDEX IF NOT EXISTS beer_upc_uk ON beer (upc);
+
+-- listBeers filtered on style, or style and name, in id order
+CREATE INDEX IF NOT EXISTS beer_style_name_id_idx ON beer (beer_style, beer_name, id);
+
+-- listBeers filtered on name only
+CREATE INDEX IF NOT EXISTS beer_name_id_idx ON beer (beer_name, id);
+
+-- list page ETags: bumped by every write to the catalog, read by all instances
+CREATE TABLE IF NOT EXISTS beer_catalog (
+id integer NOT NULL PRIMARY KEY,
+epoch varchar2(36) NOT NULL,
+version bigint DEFAULT 0 NOT NULL
+);
+
+INSERT INTO beer_catalog (id, epoch, version)
+SELECT 1, CAST(RANDOM_UUID() AS varchar2(36)), 0 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM beer_catalog WHERE id = 1);
@@ -0,0 +1,31 @@
+CREATE TABLE IF NOT EXISTS beer (
+id serial PRIMARY KEY,
+beer_name varchar(255),
+beer_style varchar(255),
+upc varchar(25),
+quantity_on_hand integer,
+version bigint DEFAULT 0 NOT NULL,
+price numeric(10, 2),
+created_date timestamp,
+last_modified_date timestamp
+);
+
+-- findByUpc
+CREATE UNIQUE INDEX IF NOT EXISTS beer_upc_uk ON beer (upc);
+
+-- listBeers filtered on style, or style and name, in id order
+CREATE INDEX IF NOT EXISTS beer_style_name_id_idx ON beer (beer_style, beer_name, id);
+
+-- listBeers filtered on name only
+CREATE INDEX IF NOT EXISTS beer_name_id_idx ON beer (beer_name, id);
+
+-- list page ETags: bumped by every write to the catalog, read by all instances
+CREATE TABLE IF NOT EXISTS beer_catalog (
+id integer PRIMARY KEY,
+epoch varchar(36) NOT NULL,
+version bigint DEFAULT 0 NOT NULL
+);
+
+INSERT INTO beer_catalog (id, epoch, version)
+VALUES (1, md5(random()::text || clock_timestamp()::text), 0)
+ON CONFLICT (id) DO NOTHING;
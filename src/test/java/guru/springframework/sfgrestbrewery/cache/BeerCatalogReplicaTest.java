@@ -0,0 +1,128 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BeerCatalogReplicaTest {
+
+    BeerCatalogReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        replica = new BeerCatalogReplica(true);
+        replica.load(List.of(beer(3, "Galaxy Cat", "PALE_ALE", "upc-3"),
+                beer(1, "Mango Bobs", "ALE", "upc-1"),
+                beer(2, "Blessed", "STOUT", "upc-2"),
+                beer(4, "Blessed", "STOUT", "upc-4")));
+    }
+
+    private static BeerDto beer(int id, String beerName, String beerStyle, String upc) {
+        return BeerDto.builder().id(id).beerName(beerName).beerStyle(beerStyle).upc(upc).build();
+    }
+
+    private static BeerDto beer(int id, String beerName, String beerStyle, String upc, Long version) {
+        return BeerDto.builder().id(id).beerName(beerName).beerStyle(beerStyle).upc(upc).version(version).build();
+    }
+
+    private static List<Integer> ids(List<BeerDto> beers) {
+        return beers.stream().map(BeerDto::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void shouldIndexByIdUpcStyleAndName() {
+        assertThat(replica.findById(3)).get().extracting(BeerDto::getBeerName).isEqualTo("Galaxy Cat");
+        assertThat(replica.findByUpc("upc-4")).get().extracting(BeerDto::getId).isEqualTo(4);
+        assertThat(ids(replica.findAll(null, null))).containsExactly(1, 2, 3, 4);
+        assertThat(ids(replica.findAll(null, "STOUT"))).containsExactly(2, 4);
+        assertThat(ids(replica.findAll("Blessed", "STOUT"))).containsExactly(2, 4);
+        assertThat(replica.findAll("Blessed", "ALE")).isEmpty();
+    }
+
+    @Test
+    void shouldPageAfterAnId() {
+        assertThat(ids(replica.findAfter(null, null, 2))).containsExactly(1, 2);
+        assertThat(ids(replica.findAfter(null, 2, 2))).containsExactly(3, 4);
+        assertThat(ids(replica.findAfter("STOUT", 2, 2))).containsExactly(4);
+        assertThat(replica.findAfter(null, 4, 2)).isEmpty();
+    }
+
+    @Test
+    void shouldMoveChangedBeersBetweenIndexes() {
+        replica.put(beer(2, "Adjunct Trail", "IPA", "upc-2b"));
+        replica.remove(4);
+        replica.put(beer(5, "Loco", "STOUT", "upc-5"));
+
+        assertThat(replica.findByUpc("upc-2")).isEmpty();
+        assertThat(replica.findByUpc("upc-2b")).get().extracting(BeerDto::getBeerName).isEqualTo("Adjunct Trail");
+        assertThat(replica.findById(4)).isEmpty();
+        assertThat(replica.findAll("Blessed", null)).isEmpty();
+        assertThat(ids(replica.findAll(null, "STOUT"))).containsExactly(5);
+        assertThat(ids(replica.findAll(null, null))).containsExactly(1, 2, 3, 5);
+    }
+
+    @Test
+    void shouldKeepTheHighestVersionOfABeer() {
+        replica.put(beer(2, "Blessed", "STOUT", "upc-2", 3L));
+        replica.put(beer(2, "Blessed Older", "STOUT", "upc-2", 2L));
+        replica.putAll(List.of(beer(3, "Galaxy Cat Newer", "PALE_ALE", "upc-3", 5L),
+                beer(3, "Galaxy Cat Older", "PALE_ALE", "upc-3", 4L)));
+
+        assertThat(replica.findById(2)).get().extracting(BeerDto::getVersion).isEqualTo(3L);
+        assertThat(replica.findByUpc("upc-3")).get().extracting(BeerDto::getBeerName).isEqualTo("Galaxy Cat Newer");
+        assertThat(replica.findAll("Blessed Older", null)).isEmpty();
+        assertThat(ids(replica.findAll("Blessed", null))).containsExactly(2, 4);
+    }
+
+    @Test
+    void shouldNotBringBackARemovedBeer() {
+        final var readBack = beer(2, "Blessed", "STOUT", "upc-2", 4L);
+
+        replica.remove(2);
+        replica.put(readBack);
+
+        assertThat(replica.findById(2)).isEmpty();
+        assertThat(replica.findByUpc("upc-2")).isEmpty();
+        assertThat(ids(replica.findAll(null, "STOUT"))).containsExactly(4);
+        assertThat(ids(replica.findAll(null, null))).containsExactly(1, 3, 4);
+    }
+
+    @Test
+    void shouldKeepPublishedSnapshotsUnchanged() {
+        final var before = replica.findAll(null, null);
+
+        replica.remove(1);
+
+        assertThat(ids(before)).containsExactly(1, 2, 3, 4);
+        assertThat(ids(replica.findAll(null, null))).containsExactly(2, 3, 4);
+    }
+
+    @Test
+    void shouldReplayChangesMadeWhileLoading() {
+        final var loading = new BeerCatalogReplica(true);
+
+        loading.remove(1);
+        loading.put(beer(2, "Blessed Again", "STOUT", "upc-2"));
+
+        assertThat(loading.isServing()).isFalse();
+
+        loading.load(List.of(beer(1, "Mango Bobs", "ALE", "upc-1"), beer(2, "Blessed", "STOUT", "upc-2")));
+
+        assertThat(loading.isServing()).isTrue();
+        assertThat(loading.findById(1)).isEmpty();
+        assertThat(loading.findById(2)).get().extracting(BeerDto::getBeerName).isEqualTo("Blessed Again");
+    }
+
+    @Test
+    void shouldNotServeWhenDisabled() {
+        final var disabled = new BeerCatalogReplica(false);
+        disabled.load(List.of(beer(1, "Mango Bobs", "ALE", "upc-1")));
+
+        assertThat(disabled.isServing()).isFalse();
+    }
+}
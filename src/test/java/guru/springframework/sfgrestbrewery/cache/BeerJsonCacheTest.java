@@ -0,0 +1,63 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BeerJsonCacheTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    BeerJsonCache beerJsonCache;
+
+    @BeforeEach
+    void setUp() {
+        beerJsonCache = new BeerJsonCache(Caffeine.newBuilder().maximumSize(100).build(), objectMapper, true);
+    }
+
+    private static BeerDto beer(String price) {
+        return beer(price, 1L);
+    }
+
+    private static BeerDto beer(String price, Long version) {
+        return BeerDto.builder().id(1).beerName("Mango Bobs").beerStyle("ALE").upc("upc-1").price(new BigDecimal(price)).version(version).build();
+    }
+
+    @Test
+    void shouldRenderTheJsonJacksonWouldWrite() throws Exception {
+        final var rendered = beerJsonCache.render(beer("12.95"));
+
+        assertThat(objectMapper.readValue(rendered.getJson(), BeerDto.class)).isEqualTo(beer("12.95"));
+        assertThat(rendered.getEtag()).isEqualTo("\"beer-1-1\"");
+    }
+
+    @Test
+    void shouldTagABeerWithoutVersionByItsContent() {
+        final var first = beerJsonCache.render(beer("12.95", null));
+        final var changed = beerJsonCache.render(beer("13.95", null));
+
+        assertThat(first.getEtag()).startsWith("\"").endsWith("\"").isNotEqualTo(changed.getEtag());
+    }
+
+    @Test
+    void shouldReuseTheRenderingWhileTheBeerIsUnchanged() {
+        final var first = beerJsonCache.render(beer("12.95"));
+
+        assertThat(beerJsonCache.render(beer("12.95"))).isSameAs(first);
+    }
+
+    @Test
+    void shouldRenderAgainOnceTheBeerChanged() {
+        final var first = beerJsonCache.render(beer("12.95"));
+        final var changed = beerJsonCache.render(beer("13.95", 2L));
+
+        assertThat(changed).isNotSameAs(first);
+        assertThat(changed.getEtag()).isNotEqualTo(first.getEtag());
+        assertThat(beerJsonCache.render(beer("13.95", 2L))).isSameAs(changed);
+    }
+}
@@ -0,0 +1,99 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReactiveCacheTest {
+
+    ReactiveCache<Integer, String> cache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReactiveCache<>("test", Caffeine.newBuilder().maximumSize(10).recordStats().build());
+        loads = new AtomicInteger();
+    }
+
+    private Mono<String> load(Integer key) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return "value-" + key;
+        });
+    }
+
+    @Test
+    void shouldServeResolvedValueFromCache() {
+        assertThat(cache.get(1, this::load).block()).isEqualTo("value-1");
+        assertThat(cache.get(1, this::load).block()).isEqualTo("value-1");
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheEmptyResults() {
+        assertThat(cache.get(1, key -> Mono.<String>empty()).block()).isNull();
+        assertThat(cache.get(1, this::load).block()).isEqualTo("value-1");
+    }
+
+    @Test
+    void shouldReloadAfterEvict() {
+        cache.get(1, this::load).block();
+        cache.evict(1);
+        cache.get(1, this::load).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotStoreLoadThatRacedAnEvict() {
+        final var staleValue = cache.get(1, key -> Mono.fromSupplier(() -> {
+            cache.evict(key);
+            return "stale";
+        })).block();
+
+        assertThat(staleValue).isEqualTo("stale");
+        assertThat(cache.getNativeCache().getIfPresent(1)).isNull();
+    }
+
+    @Test
+    void shouldStoreLoadThatRacedAWriteToAnotherKey() {
+        cache.get(2, key -> Mono.fromSupplier(() -> {
+            cache.put(1, "one");
+            cache.evict(3);
+            cache.evictIf(other -> other > 2);
+            cache.evictValuesIf("value-3"::equals);
+            return "value-" + key;
+        })).block();
+
+        assertThat(cache.getNativeCache().getIfPresent(2)).isEqualTo("value-2");
+    }
+
+    @Test
+    void shouldNotStoreLoadWhoseValueWasEvicted() {
+        cache.get(2, key -> Mono.fromSupplier(() -> {
+            cache.evictValuesIf("value-2"::equals);
+            return "value-" + key;
+        })).block();
+
+        assertThat(cache.getNativeCache().getIfPresent(2)).isNull();
+    }
+
+    @Test
+    void shouldEvictMatchingKeys() {
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+
+        cache.evictIf(key -> key % 2 == 1);
+
+        assertThat(cache.getNativeCache().asMap()).containsOnlyKeys(2);
+    }
+}
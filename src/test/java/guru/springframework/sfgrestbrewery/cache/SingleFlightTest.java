@@ -0,0 +1,66 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SingleFlightTest {
+
+    SingleFlight<Integer, String> singleFlight;
+    Sinks.One<String> result;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        result = Sinks.one();
+        loads = new AtomicInteger();
+    }
+
+    private Mono<String> load(Integer key) {
+        loads.incrementAndGet();
+        return result.asMono();
+    }
+
+    @Test
+    void shouldShareInFlightLoad() {
+        final var first = new AtomicReference<String>();
+        final var second = new AtomicReference<String>();
+
+        singleFlight.execute(1, this::load).subscribe(first::set);
+        singleFlight.execute(1, this::load).subscribe(second::set);
+
+        result.tryEmitValue("value");
+
+        assertThat(first.get()).isEqualTo("value");
+        assertThat(second.get()).isEqualTo("value");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(singleFlight.issuedCount()).isEqualTo(1);
+        assertThat(singleFlight.coalescedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIssueNewLoadAfterCompletion() {
+        singleFlight.execute(1, key -> Mono.just("one")).block();
+        singleFlight.execute(1, key -> Mono.just("two")).block();
+
+        assertThat(singleFlight.issuedCount()).isEqualTo(2);
+        assertThat(singleFlight.coalescedCount()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldIssueNewLoadAfterForget() {
+        singleFlight.execute(1, this::load).subscribe();
+        singleFlight.forget(1);
+        singleFlight.execute(1, this::load).subscribe();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,128 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StripedStockCounterTest {
+
+    AtomicInteger database;
+    AtomicInteger takes;
+    StripedStockCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        database = new AtomicInteger(100);
+        takes = new AtomicInteger();
+        counter = new StripedStockCounter(4, 10, this::take, this::giveBack);
+    }
+
+    private Mono<Boolean> take(int quantity) {
+        takes.incrementAndGet();
+        return Mono.fromSupplier(() -> {
+            final var available = database.get();
+            return available >= quantity && database.compareAndSet(available, available - quantity);
+        });
+    }
+
+    private Mono<Void> giveBack(int quantity) {
+        return Mono.fromRunnable(() -> database.addAndGet(quantity));
+    }
+
+    @Test
+    void shouldLeaseStockInChunks() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(counter.reserve(1).block()).isTrue();
+        }
+
+        assertThat(takes.get()).isLessThan(20);
+        assertThat(database.get() + counter.held()).isEqualTo(80);
+    }
+
+    @Test
+    void shouldNeverOversell() {
+        final var reserved = Flux.range(0, 150)
+                .flatMap(i -> counter.reserve(1))
+                .filter(Boolean::booleanValue)
+                .count()
+                .block();
+
+        assertThat(reserved).isEqualTo(100);
+        assertThat(database.get() + counter.held()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldGiveBackHeldStockOnFlush() {
+        counter.reserve(3).block();
+        counter.release(2);
+
+        counter.flush().block();
+
+        assertThat(counter.held()).isEqualTo(0);
+        assertThat(database.get()).isEqualTo(99);
+    }
+
+    @Test
+    void shouldKeepDrainedStockWhenTakeFails() {
+        final var failing = new StripedStockCounter(4, 10,
+                quantity -> quantity > 10 ? Mono.just(false) : Mono.error(new IllegalStateException("database down")),
+                this::giveBack);
+        failing.release(5);
+
+        assertThatThrownBy(() -> failing.reserve(8).block()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(failing.held()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldSettleDrainedStockWhenTakeIsCancelled() {
+        final var refused = Sinks.<Boolean>one();
+        final var granted = Sinks.<Boolean>one();
+        final var takes = new ArrayDeque<>(List.of(refused, granted));
+        final var cancelled = new StripedStockCounter(4, 10,
+                quantity -> quantity > 10 ? Mono.just(false) : takes.remove().asMono(), this::giveBack);
+        cancelled.release(5);
+
+        cancelled.reserve(8).subscribe().dispose();
+        refused.tryEmitValue(false);
+
+        assertThat(cancelled.held()).isEqualTo(5);
+
+        cancelled.reserve(8).subscribe().dispose();
+        granted.tryEmitValue(true);
+
+        assertThat(cancelled.held()).isEqualTo(8);
+    }
+
+    @Test
+    void shouldKeepHeldStockWhenGiveBackFails() {
+        final var failing = new StripedStockCounter(4, 10, this::take,
+                quantity -> Mono.error(new IllegalStateException("database down")));
+        failing.reserve(1).block();
+
+        assertThatThrownBy(() -> failing.flush().block()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(failing.held()).isEqualTo(10);
+        assertThat(database.get()).isEqualTo(89);
+    }
+
+    @Test
+    void shouldKeepLeaseWhenReserveIsCancelledAfterTheTake() {
+        final var taken = Sinks.<Boolean>one();
+        final var leasing = new StripedStockCounter(4, 10, quantity -> taken.asMono(), this::giveBack);
+
+        leasing.reserve(1).subscribe().dispose();
+        taken.tryEmitValue(true);
+
+        assertThat(leasing.held()).isEqualTo(11);
+    }
+}
@@ -0,0 +1,89 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperationTimerTest {
+
+    SimpleMeterRegistry meterRegistry;
+    OperationTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        timer = new OperationTimer("test", meterRegistry);
+    }
+
+    private long count(String operation, String outcome) {
+        final var found = meterRegistry.find("test").tag("operation", operation).tag("outcome", outcome).timer();
+        return found != null ? found.count() : 0;
+    }
+
+    @Test
+    void shouldTimeOnlyWhenSubscribed() {
+        final var lookup = timer.lookup(() -> Tags.of("operation", "get"), Mono.just("beer"));
+
+        assertThat(count("get", OperationTimer.FOUND)).isZero();
+
+        lookup.block();
+        lookup.block();
+
+        assertThat(count("get", OperationTimer.FOUND)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTagLookupOutcomes() {
+        timer.lookup(() -> Tags.of("operation", "get"), Mono.empty()).block();
+        timer.lookup(() -> Tags.of("operation", "get"), Mono.error(new IllegalStateException()))
+                .onErrorResume(e -> Mono.empty()).block();
+
+        assertThat(count("get", OperationTimer.NOT_FOUND)).isEqualTo(1);
+        assertThat(count("get", OperationTimer.ERROR)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTakeLookupTagsWhenTheLookupEnds() {
+        final var cacheResult = new AtomicReference<>("hit");
+
+        timer.lookup(() -> Tags.of("operation", "get", "cache", cacheResult.get()),
+                Mono.fromSupplier(() -> {
+                    cacheResult.set("miss");
+                    return "beer";
+                })).block();
+
+        assertThat(meterRegistry.find("test").tag("cache", "miss").timer()).isNotNull();
+        assertThat(meterRegistry.find("test").tag("cache", "hit").timer()).isNull();
+    }
+
+    @Test
+    void shouldTagCommandOutcomes() {
+        timer.command(Tags.of("operation", "delete"), Mono.empty()).block();
+        timer.command(Tags.of("operation", "delete"), Mono.error(new NotFoundException()))
+                .onErrorResume(e -> Mono.empty()).block();
+        timer.command(Tags.of("operation", "delete"), Mono.error(new OptimisticLockingFailureException("stale")))
+                .onErrorResume(e -> Mono.empty()).block();
+
+        assertThat(count("delete", OperationTimer.SUCCESS)).isEqualTo(1);
+        assertThat(count("delete", OperationTimer.NOT_FOUND)).isEqualTo(1);
+        assertThat(count("delete", OperationTimer.CONFLICT)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTagCancelledStreams() {
+        timer.stream(Tags.of("operation", "export"), Flux.range(1, 10)).take(3).blockLast();
+        timer.stream(Tags.of("operation", "export"), Flux.range(1, 10)).blockLast();
+
+        assertThat(count("export", OperationTimer.CANCELLED)).isEqualTo(1);
+        assertThat(count("export", OperationTimer.SUCCESS)).isEqualTo(1);
+    }
+}
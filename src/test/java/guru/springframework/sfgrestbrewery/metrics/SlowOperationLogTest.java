@@ -0,0 +1,87 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import guru.springframework.sfgrestbrewery.tracing.Tracer;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlowOperationLogTest {
+
+    Logger logger;
+    ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        logger = (Logger) LoggerFactory.getLogger(SlowOperationLog.LOGGER);
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void shouldLogOnlyOperationsOverTheThreshold() {
+        final var slowLog = new SlowOperationLog("query", Duration.ofMillis(100), 1.0);
+
+        slowLog.record(Tags.of("method", "findById"), Duration.ofMillis(99).toNanos());
+        slowLog.record(Tags.of("method", "findAll"), Duration.ofMillis(150).toNanos() + 250_000);
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("slow_query duration_ms=150.250 threshold_ms=100 method=findAll");
+    }
+
+    @Test
+    void shouldQuoteValuesWithSpaces() {
+        new SlowOperationLog("request", Duration.ofMillis(1), 1.0)
+                .record(Tags.of("path", "/api/v1/beer", "query", "beerName=Mango Bobs"), Duration.ofMillis(2).toNanos());
+
+        assertThat(appender.list.get(0).getFormattedMessage()).endsWith("path=/api/v1/beer query=\"beerName=Mango Bobs\"");
+    }
+
+    @Test
+    void shouldLogNothingWhenTurnedOff() {
+        new SlowOperationLog("query", Duration.ZERO, 1.0).record(Tags.empty(), Duration.ofSeconds(1).toNanos());
+        new SlowOperationLog("query", Duration.ofMillis(1), 0).record(Tags.empty(), Duration.ofSeconds(1).toNanos());
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void shouldLogASampleOfSlowOperations() {
+        final var slowLog = new SlowOperationLog("query", Duration.ofMillis(1), 0.1);
+
+        for (int i = 0; i < 10_000; i++) {
+            slowLog.record(Tags.empty(), Duration.ofMillis(2).toNanos());
+        }
+
+        assertThat(appender.list.size()).isBetween(700, 1300);
+    }
+
+    @Test
+    void shouldLogSlowTimedOperationsWithTheirOutcome() {
+        final var timer = new OperationTimer("test", new SimpleMeterRegistry(),
+                new SlowOperationLog("service", Duration.ofMillis(20), 1.0), Tracer.NOOP);
+
+        timer.lookup(() -> Tags.of("operation", "get"), Mono.just("beer")).block();
+        timer.lookup(() -> Tags.of("operation", "get"), Mono.just("beer").delayElement(Duration.ofMillis(50))).block();
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getFormattedMessage()).startsWith("slow_service ")
+                .endsWith(" operation=get outcome=found");
+    }
+}
@@ -0,0 +1,60 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BeerNameIndexTest {
+
+    BeerNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BeerNameIndex();
+        index.put(1, "Pliny the Younger", "IPA");
+        index.put(2, "Pinball Porter", "STOUT");
+        index.put(3, "PBS Porter", "PORTER");
+        index.put(4, "Double Barrel Hunahpu's", "STOUT");
+        index.put(5, "Café Olé Stout", "STOUT");
+    }
+
+    @Test
+    void shouldMatchNamePrefixIgnoringCase() {
+        assertThat(index.search("PLINY the y", 10)).extracting(BeerSuggestion::getId).containsExactly(1);
+        assertThat(index.search("p", 10)).extracting(BeerSuggestion::getId).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    void shouldMatchWordsAnywhereInTheName() {
+        assertThat(index.search("port", 10)).extracting(BeerSuggestion::getId).containsExactlyInAnyOrder(2, 3);
+        assertThat(index.search("younger pli", 10)).extracting(BeerSuggestion::getId).containsExactly(1);
+        assertThat(index.search("hunahpu", 10)).extracting(BeerSuggestion::getId).containsExactly(4);
+        assertThat(index.search("porter younger", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreAccentsAndPunctuation() {
+        assertThat(index.search("cafe ole", 10)).extracting(BeerSuggestion::getId).containsExactly(5);
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldRankWholeNamePrefixFirstAndRespectLimit() {
+        index.put(6, "Porter Pounder", "PORTER");
+
+        assertThat(index.search("porter", 10)).extracting(BeerSuggestion::getId).first().isEqualTo(6);
+        assertThat(index.search("porter", 2)).hasSize(2);
+    }
+
+    @Test
+    void shouldFollowRenamesAndRemovals() {
+        index.put(2, "Pinball Wizard", "STOUT");
+        index.remove(3);
+
+        assertThat(index.search("porter", 10)).isEmpty();
+        assertThat(index.search("wiz", 10)).extracting(BeerSuggestion::getBeerName).containsExactly("Pinball Wizard");
+        assertThat(index.size()).isEqualTo(4);
+    }
+}
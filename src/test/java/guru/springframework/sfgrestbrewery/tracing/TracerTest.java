@@ -0,0 +1,75 @@
+package guru.springframework.sfgrestbrewery.tracing;
+
+import guru.springframework.sfgrestbrewery.metrics.OperationTimer;
+import guru.springframework.sfgrestbrewery.metrics.SlowOperationLog;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TracerTest {
+
+    static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    List<SpanData> exported = new CopyOnWriteArrayList<>();
+
+    @Test
+    void shouldSampleRootSpansAtTheRateWithoutTraceparent() {
+        assertThat(new Tracer(exported::add, 0).startRoot("request", null)).isNull();
+        assertThat(new Tracer(exported::add, 1).startRoot("request", "not-a-traceparent")).isNotNull();
+        assertThat(Tracer.NOOP.startRoot("request", TRACEPARENT)).isNull();
+    }
+
+    @Test
+    void shouldFollowTheSampledFlagOfTheTraceparent() {
+        final var tracer = new Tracer(exported::add, 0);
+
+        final var span = tracer.startRoot("request", TRACEPARENT);
+
+        assertThat(span.getTraceId()).isEqualTo("4bf92f3577b34da6a3ce929d0e0e4736");
+        assertThat(span.getParentSpanId()).isEqualTo("00f067aa0ba902b7");
+        assertThat(span.getSpanId()).hasSize(16).isNotEqualTo("00f067aa0ba902b7");
+        assertThat(new Tracer(exported::add, 1).startRoot("request", TRACEPARENT.replace("-01", "-00"))).isNull();
+    }
+
+    @Test
+    void shouldNestTimedOperationsUnderTheSpanInTheContext() {
+        final var tracer = new Tracer(exported::add, 1);
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var service = new OperationTimer("service", meterRegistry, SlowOperationLog.DISABLED, tracer);
+        final var repository = new OperationTimer("repository", meterRegistry, SlowOperationLog.DISABLED, tracer);
+
+        final var root = tracer.startRoot("request", null);
+        final var query = repository.stream(Tags.of("method", "findAll"), Flux.just(1, 2, 3));
+
+        service.lookup(() -> Tags.of("operation", "list"), query.collectList())
+                .contextWrite(Tracer.with(root))
+                .block();
+
+        assertThat(exported).extracting(SpanData::getName).containsExactly("repository", "service");
+
+        final var querySpan = exported.get(0);
+        final var serviceSpan = exported.get(1);
+
+        assertThat(serviceSpan.getParentSpanId()).isEqualTo(root.getSpanId());
+        assertThat(querySpan.getParentSpanId()).isEqualTo(serviceSpan.getSpanId());
+        assertThat(querySpan.getTraceId()).isEqualTo(root.getTraceId());
+        assertThat(serviceSpan.getTags()).containsEntry("operation", "list").containsEntry("outcome", OperationTimer.FOUND);
+    }
+
+    @Test
+    void shouldNotStartSpansOutsideATrace() {
+        final var timer = new OperationTimer("service", new SimpleMeterRegistry(), SlowOperationLog.DISABLED,
+                new Tracer(exported::add, 1));
+
+        timer.command(Tags.of("operation", "save"), Mono.just(1)).block();
+
+        assertThat(exported).isEmpty();
+    }
+}
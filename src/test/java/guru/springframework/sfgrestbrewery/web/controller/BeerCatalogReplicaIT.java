@@ -0,0 +1,97 @@
+package guru.springframework.sfgrestbrewery.web.controller;
+
+import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.cache.BeerCatalogReplica;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+import static guru.springframework.sfgrestbrewery.web.functional.BeerRouterConfig.BEER_V2_URL;
+import static guru.springframework.sfgrestbrewery.web.functional.BeerRouterConfig.BEER_V2_URL_BEER_ID;
+import static guru.springframework.sfgrestbrewery.web.functional.BeerRouterConfig.BEER_V2_URL_UPC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads served from the in-memory replica, on a database of its own so the other ITs are not disturbed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "sfg.brewery.cache.replica.enabled=true",
+        "sfg.brewery.database.url=r2dbc:h2:mem:///replicadb?options=DB_CLOSE_DELAY=-1"})
+public class BeerCatalogReplicaIT {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BeerCatalogReplica beerCatalogReplica;
+
+    WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        webClient = WebClient.builder().baseUrl("http://localhost:" + port).build();
+    }
+
+    private BeerDto getBeer(int beerId) {
+        return webClient.get().uri(BEER_V2_URL_BEER_ID, beerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .onErrorResume(e -> Mono.empty())
+                .block();
+    }
+
+    @Test
+    void shouldServeReadsFromReplica() {
+        final var beerPagedList = webClient.get().uri("/api/v1/beer?beerStyle=STOUT&pageSize=3")
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerPagedList.class)
+                .block();
+
+        assertThat(beerCatalogReplica.isServing()).isTrue();
+        assertThat(beerPagedList.getContent()).hasSize(3).allMatch(beer -> "STOUT".equals(beer.getBeerStyle()));
+        assertThat(beerPagedList.getTotalElements()).isEqualTo(beerCatalogReplica.findAll(null, "STOUT").size());
+        assertThat(webClient.get().uri(BEER_V2_URL_UPC, BeerLoader.BEER_2_UPC)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .block().getBeerName()).isEqualTo("Galaxy Cat");
+    }
+
+    @Test
+    void shouldReplicateWrites() {
+        final var status = webClient.put().uri(BEER_V2_URL_BEER_ID, 7)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(BeerDto.builder().beerName("Double Barrel Renamed").beerStyle("STOUT")
+                        .upc(BeerLoader.BEER_7_UPC).price(new BigDecimal("11.50")).build()))
+                .retrieve().toBodilessEntity()
+                .block().getStatusCode();
+
+        final var created = webClient.post().uri(BEER_V2_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(BeerDto.builder().beerName("Replica Red").beerStyle("LAGER")
+                        .upc("replica-created").price(new BigDecimal("7.25")).build()))
+                .retrieve().toBodilessEntity()
+                .block().getHeaders().getLocation();
+
+        webClient.delete().uri(BEER_V2_URL_BEER_ID, 8).retrieve().toBodilessEntity().block();
+
+        final var updated = getBeer(7);
+
+        assertThat(status).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(updated.getBeerName()).isEqualTo("Double Barrel Renamed");
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(webClient.get().uri(created.getPath()).accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class).block().getBeerName()).isEqualTo("Replica Red");
+        assertThat(getBeer(8)).isNull();
+    }
+}
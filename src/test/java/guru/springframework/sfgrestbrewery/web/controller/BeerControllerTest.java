@@ -3,24 +3,33 @@ package guru.springframework.sfgrestbrewery.web.controller;
 
 import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
 import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursorPage;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
 
 @WebFluxTest(value = BeerController.class)
 public class BeerControllerTest {
@@ -58,6 +67,49 @@ public class BeerControllerTest {
                 .value(beerDto -> beerDto.getBeerName(), equalTo(validBeer.getBeerName()));
     }
 
+    @Test
+    void shouldAnswerNotModifiedForTheCurrentVersionOfABeer() {
+        validBeer.setVersion(3L);
+        given(beerService.getById(any(), any())).willReturn(Mono.just(validBeer));
+
+        webTestClient.get()
+                .uri("/api/v1/beer/13")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"beer-13-3\"");
+
+        webTestClient.get()
+                .uri("/api/v1/beer/13")
+                .accept(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "\"beer-13-3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        webTestClient.get()
+                .uri("/api/v1/beer/13?showInventoryOnHand=true")
+                .accept(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "\"beer-13-3\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("ETag");
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForTheCurrentCatalogWithoutReadingThePage() {
+        given(beerService.getCatalogVersion()).willReturn("abc-7");
+        given(beerService.listBeers(any(), any(), any(), any())).willReturn(Mono.error(new IllegalStateException("page read")));
+
+        webTestClient.get()
+                .uri("/api/v1/beer")
+                .accept(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "\"catalog-abc-7\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"catalog-abc-7\"");
+    }
+
     @Test
     void shouldGetAllBeers() {
 
@@ -72,6 +124,58 @@ public class BeerControllerTest {
                 .value(beerDtos -> beerDtos.getSize(), equalTo(1));
     }
 
+    @Test
+    void shouldGetBeersAfterCursor() {
+        final var cursor = new BeerCursor(BeerCursor.SortKey.NAME, "Galaxy Cat", 2);
+        given(beerService.listBeersAfter(null, cursor, 1, false))
+                .willReturn(Mono.just(new BeerCursorPage(List.of(validBeer), BeerCursor.after(BeerCursor.SortKey.NAME, validBeer).encode())));
+
+        webTestClient.get()
+                .uri("/api/v1/beerCursor?pageSize=1&cursor=" + cursor.encode())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BeerCursorPage.class)
+                .value(page -> BeerCursor.decode(page.getNextCursor()).getId(), equalTo(validBeer.getId()));
+    }
+
+    @Test
+    void shouldCapCursorPageSize() {
+        given(beerService.listBeersAfter(null, BeerCursor.start(BeerCursor.SortKey.ID), 100, false))
+                .willReturn(Mono.just(new BeerCursorPage(List.of(validBeer), null)));
+
+        webTestClient.get()
+                .uri("/api/v1/beerCursor?pageSize=" + Integer.MAX_VALUE)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BeerCursorPage.class)
+                .value(page -> page.getContent().size(), equalTo(1));
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        webTestClient.get()
+                .uri("/api/v1/beerCursor?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldSearchBeersByName() {
+        given(beerService.searchBeers("test b", 100))
+                .willReturn(Flux.just(new BeerSuggestion(validBeer.getId(), validBeer.getBeerName(), validBeer.getBeerStyle())));
+
+        webTestClient.get()
+                .uri("/api/v1/beerSearch?query=test b&limit=500")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BeerSuggestion.class)
+                .value(suggestions -> suggestions.get(0).getId(), equalTo(validBeer.getId()));
+    }
+
     @Test
     void shouldGetBeerByUpc() {
         final var upc = BeerLoader.BEER_1_UPC;
@@ -127,27 +231,62 @@ public class BeerControllerTest {
                 .upc(validBeer.getUpc())
                 .build();
 
-        final var updatedBeer = BeerDto.builder()
-                .id(idUpdatedBeer)
+        given(beerService.updateBeer(idUpdatedBeer, beerToUpdate)).willReturn(Mono.just(1));
+
+        webTestClient.put()
+                .uri("/api/v1/beer/" + idUpdatedBeer)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(beerToUpdate))
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenUpdatingMissingBeer() {
+        final var idMissingBeer = 404;
+        final var beerToUpdate = BeerDto.builder()
                 .price(validBeer.getPrice())
-                .beerName(validBeer.getBeerName() + ":updated")
+                .beerName(validBeer.getBeerName())
                 .beerStyle(validBeer.getBeerStyle())
                 .upc(validBeer.getUpc())
                 .build();
-        given(beerService.updateBeer(idUpdatedBeer, beerToUpdate)).willReturn(Mono.just(updatedBeer));
+
+        given(beerService.updateBeer(idMissingBeer, beerToUpdate)).willReturn(Mono.just(0));
+
+        webTestClient.put()
+                .uri("/api/v1/beer/" + idMissingBeer)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(beerToUpdate))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldReturnConflictWhenUpdatingStaleVersion() {
+        final var idUpdatedBeer = 8;
+        final var beerToUpdate = BeerDto.builder()
+                .price(validBeer.getPrice())
+                .beerName(validBeer.getBeerName())
+                .beerStyle(validBeer.getBeerStyle())
+                .upc(validBeer.getUpc())
+                .version(3L)
+                .build();
+
+        given(beerService.updateBeer(idUpdatedBeer, beerToUpdate))
+                .willReturn(Mono.error(new OptimisticLockingFailureException("stale")));
 
         webTestClient.put()
                 .uri("/api/v1/beer/" + idUpdatedBeer)
                 .accept(MediaType.APPLICATION_JSON)
                 .body(BodyInserters.fromValue(beerToUpdate))
                 .exchange()
-                .expectStatus().isNoContent();
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
     }
 
     @Test
     void shouldDeleteBeer() {
         final var idBeerToDelete = 1;
-        doNothing().when(beerService).deleteBeerById(idBeerToDelete);
+        given(beerService.deleteBeerById(idBeerToDelete)).willReturn(Mono.empty());
 
         webTestClient.delete()
                 .uri("/api/v1/beer/" + idBeerToDelete)
@@ -156,4 +295,29 @@ public class BeerControllerTest {
                 .expectStatus().isNoContent();
     }
 
+    @Test
+    void shouldDeleteBeersInBulk() {
+        given(beerService.deleteBeersById(List.of(1, 2, 3))).willReturn(Mono.just(3));
+
+        webTestClient.delete()
+                .uri("/api/v1/beer?ids=1,2,3")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Integer.class).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRejectBulkDeleteOfMoreThanAPage() {
+        final var ids = IntStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        webTestClient.delete()
+                .uri("/api/v1/beer?ids=" + ids)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        then(beerService).should(never()).deleteBeersById(any());
+    }
+
 }
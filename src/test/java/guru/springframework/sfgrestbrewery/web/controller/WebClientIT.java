@@ -1,10 +1,12 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
 import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursorPage;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -26,6 +28,8 @@ import static reactor.netty.http.client.HttpClient.create;
 /**
  * Created by jt on 3/7/21.
  */
+// both ITs share one application context on port 8080, so they need the same test configuration
+@AutoConfigureMetrics
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
 public class WebClientIT {
 
@@ -145,13 +149,61 @@ public class WebClientIT {
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
 
+    @Test
+    void testListBeersByCursor() {
+        final var firstPage = webClient.get().uri("/api/v1/beerCursor?pageSize=5&sortBy=NAME")
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(BeerCursorPage.class)
+                .block();
+
+        final var secondPage = webClient.get().uri("/api/v1/beerCursor?pageSize=5&cursor=" + firstPage.getNextCursor())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(BeerCursorPage.class)
+                .block();
+
+        final var lastOfFirst = firstPage.getContent().get(4).getBeerName();
+        assertThat(secondPage.getContent()).hasSize(5);
+        assertThat(secondPage.getContent().get(0).getBeerName()).isGreaterThanOrEqualTo(lastOfFirst);
+    }
+
+    @Test
+    void shouldCountEveryPageOfAFilteredListAndRecountAfterWrites() {
+        for (int i = 1; i <= 3; i++) {
+            createBeer("Paged Count Beer", "v1-paged-count-" + i);
+        }
+
+        final var firstPage = listBeersNamed("Paged Count Beer", 0);
+        final var lastPage = listBeersNamed("Paged Count Beer", 1);
+
+        assertThat(firstPage.getContent()).hasSize(2);
+        assertThat(firstPage.getTotalElements()).isEqualTo(3);
+        assertThat(firstPage.getTotalPages()).isEqualTo(2);
+        assertThat(lastPage.getContent()).hasSize(1);
+        assertThat(lastPage.getTotalPages()).isEqualTo(2);
+
+        // the total of this filter is cached now, so it must be evicted by the create and the delete
+        createBeer("Paged Count Beer", "v1-paged-count-4");
+        assertThat(listBeersNamed("Paged Count Beer", 0).getTotalElements()).isEqualTo(4);
+
+        webClient.delete().uri("/api/v1/beer/" + firstPage.getContent().get(0).getId())
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+        final var afterDelete = listBeersNamed("Paged Count Beer", 0);
+
+        assertThat(afterDelete.getTotalElements()).isEqualTo(3);
+        assertThat(afterDelete.getTotalPages()).isEqualTo(2);
+    }
+
     @Test
     void testShouldCreateBeer() throws InterruptedException {
         CountDownLatch countDownLatch = new CountDownLatch(1);
 
         BeerDto beerDto = BeerDto.builder()
                 .beerName("New Beer")
-                .upc("123")
+                .upc("v1-created")
                 .beerStyle("PALE_ALE")
                 .price(new BigDecimal(12.34))
                 .build();
@@ -179,7 +231,7 @@ public class WebClientIT {
 
         BeerDto beerDto = BeerDto.builder()
                 .beerName("New Beer:UPDATED")
-                .upc("123")
+                .upc("v1-updated")
                 .beerStyle("PALE_ALE")
                 .price(new BigDecimal(12.34))
                 .build();
@@ -319,4 +371,58 @@ public class WebClientIT {
         countDownLatch.await(1000, TimeUnit.MILLISECONDS);
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
+
+    @Test
+    void testPoolMetricsExposed() {
+        final var metric = webClient.get().uri("/actuator/metrics/r2dbc.pool.acquired")
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+
+        assertThat(metric).contains("\"values\":[\"connectionFactory\"]");
+    }
+
+    @Test
+    void testServiceAndRepositoryTimersExposedToPrometheus() {
+        webClient.get().uri("api/v1/beer/" + 2)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .block();
+
+        final var scrape = webClient.get().uri("/actuator/prometheus")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+
+        assertThat(scrape).contains("beer_service_seconds_count{cache=\"", "operation=\"getById\",outcome=\"found\"");
+        assertThat(scrape).contains("beer_repository_seconds_count{method=\"findById\",outcome=\"success\",repository=\"beerRepository\"");
+        assertThat(scrape).contains("http_server_requests_seconds_bucket");
+    }
+
+    private void createBeer(String beerName, String upc) {
+        webClient.post().uri("/api/v1/beer")
+                .body(BodyInserters.fromValue(BeerDto.builder()
+                        .beerName(beerName)
+                        .upc(upc)
+                        .beerStyle("PILSNER")
+                        .price(new BigDecimal("5.25"))
+                        .build()))
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+    }
+
+    private BeerPagedList listBeersNamed(String beerName, int pageNumber) {
+        return webClient.get().uri(uriBuilder -> uriBuilder
+                        .path("/api/v1/beer")
+                        .queryParam("beerName", beerName)
+                        .queryParam("pageSize", 2)
+                        .queryParam("pageNumber", pageNumber)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(BeerPagedList.class)
+                .block();
+    }
 }
@@ -1,10 +1,20 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
 import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.repositories.BeerCatalogRepository;
+import guru.springframework.sfgrestbrewery.tracing.TracingWebFilter;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursorPage;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerIngestResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdate;
+import guru.springframework.sfgrestbrewery.web.model.BeerStockUpdateResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerSuggestion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -13,8 +23,11 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static guru.springframework.sfgrestbrewery.web.functional.BeerRouterConfig.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,6 +36,8 @@ import static reactor.netty.http.client.HttpClient.create;
 /**
  * Created by jt on 3/7/21.
  */
+// both ITs share one application context on port 8080, so they need the same test configuration
+@AutoConfigureMetrics
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
 public class WebClientV2IT {
 
@@ -30,6 +45,9 @@ public class WebClientV2IT {
 
     WebClient webClient;
 
+    @Autowired
+    BeerCatalogRepository beerCatalogRepository;
+
     @BeforeEach
     void setUp() {
         webClient = WebClient.builder()
@@ -116,13 +134,148 @@ public class WebClientV2IT {
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
 
+    @Test
+    void shouldServeBeerByIdWithETag() {
+        final var first = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(5))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().toEntity(BeerDto.class)
+                .block();
+
+        final var second = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(5))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().toEntity(BeerDto.class)
+                .block();
+
+        assertThat(first.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(first.getHeaders().getETag()).isNotBlank().isEqualTo(second.getHeaders().getETag());
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(second.getBody().getId()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForCurrentETags() {
+        final var beer = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(5))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().toEntity(BeerDto.class)
+                .block();
+
+        final var beerStatus = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(5))
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(beer.getHeaders().getETag())
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        final var page = webClient.get().uri(BEER_V2_URL_CURSOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().toBodilessEntity()
+                .block();
+
+        final var pageStatus = webClient.get().uri(BEER_V2_URL_CURSOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(page.getHeaders().getETag())
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        assertThat(beer.getHeaders().getETag()).isEqualTo("\"beer-5-" + beer.getBody().getVersion() + "\"");
+        assertThat(beerStatus).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(page.getHeaders().getETag()).startsWith("\"catalog-");
+        assertThat(pageStatus).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void shouldTagListPagesWithWritesOfOtherInstances() throws InterruptedException {
+        final var before = listPageETag();
+
+        // what a write on another instance leaves in the shared database
+        beerCatalogRepository.bumpVersion().block();
+
+        var after = listPageETag();
+        for (int i = 0; i < 50 && after.equals(before); i++) {
+            Thread.sleep(100);
+            after = listPageETag();
+        }
+
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    private String listPageETag() {
+        return webClient.get().uri(BEER_V2_URL_CURSOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().toBodilessEntity()
+                .block()
+                .getHeaders().getETag();
+    }
+
+    @Test
+    void shouldContinueSampledTrace() {
+        final var traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+        final var traceparent = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(5))
+                .accept(MediaType.APPLICATION_JSON)
+                .header(TracingWebFilter.TRACEPARENT, "00-" + traceId + "-00f067aa0ba902b7-01")
+                .exchangeToMono(response -> Mono.justOrEmpty(response.headers().asHttpHeaders().getFirst(TracingWebFilter.TRACEPARENT)))
+                .block();
+
+        assertThat(traceparent).startsWith("00-" + traceId + "-").endsWith("-01")
+                .doesNotContain("00f067aa0ba902b7");
+    }
+
+    @Test
+    void shouldListBeersByCursor() throws InterruptedException {
+        CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_CURSOR).queryParam("pageSize", 10).build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(BeerCursorPage.class)
+                .subscribe(beerCursorPage -> {
+                    assertThat(beerCursorPage.getContent()).hasSize(10);
+                    assertThat(beerCursorPage.getNextCursor()).isNotNull();
+
+                    countDownLatch.countDown();
+                });
+
+        countDownLatch.await(1000, TimeUnit.MILLISECONDS);
+        assertThat(countDownLatch.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldRejectNonNumericCursorPageSize() {
+        final var status = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_CURSOR).queryParam("pageSize", "ten").build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        assertThat(status).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldExportBeersAsNdjson() throws InterruptedException {
+        CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_EXPORT).queryParam("beerStyle", "WHEAT").build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerDto.class)
+                .collectList()
+                .subscribe(beers -> {
+                    assertThat(beers).isNotEmpty();
+                    assertThat(beers).allMatch(beerDto -> beerDto.getBeerStyle().equals("WHEAT"));
+
+                    countDownLatch.countDown();
+                });
+
+        countDownLatch.await(1000, TimeUnit.MILLISECONDS);
+        assertThat(countDownLatch.getCount()).isEqualTo(0);
+    }
+
     @Test
     void shouldCreateNewBeer() throws InterruptedException {
         CountDownLatch countDownLatch = new CountDownLatch(1);
 
         BeerDto beerDto = BeerDto.builder()
                 .beerName("New Beer")
-                .upc("123")
+                .upc("v2-created")
                 .beerStyle("PALE_ALE")
                 .price(new BigDecimal(12.34))
                 .build();
@@ -143,6 +296,247 @@ public class WebClientV2IT {
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
 
+    @Test
+    void shouldIngestBeersInBulk() throws InterruptedException {
+        CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        final var beers = List.of(
+                BeerDto.builder().beerName("Bulk Beer 1").beerStyle("LAGER").upc("bulk-1").price(new BigDecimal("3.99")).build(),
+                BeerDto.builder().upc("bulk-invalid").build(),
+                BeerDto.builder().beerName("Bulk Beer 2").beerStyle("IPA").upc("bulk-2").price(new BigDecimal("4.99")).build());
+
+        webClient.post().uri(BEER_V2_URL_BULK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(beers))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerIngestResult.class)
+                .collectList()
+                .subscribe(results -> {
+                    assertThat(results).extracting(BeerIngestResult::getStatus).containsExactly(
+                            BeerIngestResult.Status.CREATED, BeerIngestResult.Status.INVALID, BeerIngestResult.Status.CREATED);
+                    assertThat(results.get(0).getId()).isNotNull();
+                    assertThat(results.get(2).getId()).isGreaterThan(results.get(0).getId());
+
+                    countDownLatch.countDown();
+                });
+
+        countDownLatch.await(1000, TimeUnit.MILLISECONDS);
+        assertThat(countDownLatch.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldFailOnlyTheBeersWithDuplicateUpcs() {
+        final var beers = List.of(
+                BeerDto.builder().beerName("Bulk Beer 3").beerStyle("LAGER").upc("bulk-3").price(new BigDecimal("3.99")).build(),
+                BeerDto.builder().beerName("Bulk Beer Taken").beerStyle("LAGER").upc(BeerLoader.BEER_9_UPC).price(new BigDecimal("3.99")).build(),
+                BeerDto.builder().beerName("Bulk Beer 3 Again").beerStyle("IPA").upc("bulk-3").price(new BigDecimal("4.99")).build(),
+                BeerDto.builder().beerName("Bulk Beer 4").beerStyle("IPA").upc("bulk-4").price(new BigDecimal("4.99")).build());
+
+        final var results = webClient.post().uri(BEER_V2_URL_BULK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(beers))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerIngestResult.class)
+                .collectList()
+                .block();
+
+        assertThat(results).extracting(BeerIngestResult::getStatus).containsExactly(
+                BeerIngestResult.Status.CREATED, BeerIngestResult.Status.FAILED,
+                BeerIngestResult.Status.FAILED, BeerIngestResult.Status.CREATED);
+        assertThat(results.get(1).getErrors()).containsExactly("upc : already exists");
+        assertThat(results.get(3).getId()).isGreaterThan(results.get(0).getId());
+
+        final var created = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_UPC).build("bulk-3"))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .block();
+
+        assertThat(created.getBeerName()).isEqualTo("Bulk Beer 3");
+    }
+
+    @Test
+    void shouldApplyStockUpdatesInBulk() {
+        final var before = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_UPC).build(BeerLoader.BEER_9_UPC))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .flatMap(beerDto -> webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID)
+                                .queryParam("showInventory", true).build(beerDto.getId()))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve().bodyToMono(BeerDto.class))
+                .block();
+
+        final var stockUpdates = List.of(
+                BeerStockUpdate.builder().upc(BeerLoader.BEER_9_UPC).quantityOnHandDelta(5).build(),
+                BeerStockUpdate.builder().upc(BeerLoader.BEER_9_UPC).quantityOnHandDelta(-2).price(new BigDecimal("7.50")).build(),
+                BeerStockUpdate.builder().quantityOnHandDelta(1).build());
+
+        final var results = webClient.post().uri(BEER_V2_URL_STOCK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(stockUpdates))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerStockUpdateResult.class)
+                .collectList()
+                .block();
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getRecords()).isEqualTo(3);
+        assertThat(results.get(0).getRejected()).isEqualTo(1);
+        assertThat(results.get(0).getBeers()).isEqualTo(1);
+        assertThat(results.get(0).getUpdated()).isEqualTo(1);
+
+        final var after = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID)
+                        .queryParam("showInventory", true).build(before.getId()))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .block();
+
+        assertThat(after.getQuantityOnHand()).isEqualTo(before.getQuantityOnHand() + 3);
+        assertThat(after.getPrice()).isEqualByComparingTo("7.50");
+    }
+
+    @Test
+    void shouldRejectStockUpdateWithNegativePrice() {
+        final var before = beerWithInventory(15);
+
+        final var results = postStockUpdates(List.of(
+                BeerStockUpdate.builder().id(15).quantityOnHandDelta(1).price(new BigDecimal("-1.00")).build()));
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getRejected()).isEqualTo(1);
+        assertThat(results.get(0).getUpdated()).isEqualTo(0);
+
+        final var after = beerWithInventory(15);
+        assertThat(after.getPrice()).isEqualByComparingTo(before.getPrice());
+        assertThat(after.getQuantityOnHand()).isEqualTo(before.getQuantityOnHand());
+    }
+
+    @Test
+    void shouldNotTakeStockBelowZero() {
+        final var before = beerWithInventory(16);
+
+        final var results = postStockUpdates(List.of(
+                BeerStockUpdate.builder().id(16).quantityOnHandDelta(-(before.getQuantityOnHand() + 1)).build(),
+                BeerStockUpdate.builder().id(1337).quantityOnHandDelta(-1).build()));
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getBeers()).isEqualTo(2);
+        assertThat(results.get(0).getUpdated()).isEqualTo(0);
+        assertThat(results.get(0).getInsufficientStock()).isEqualTo(1);
+
+        assertThat(beerWithInventory(16).getQuantityOnHand()).isEqualTo(before.getQuantityOnHand());
+    }
+
+    private BeerDto beerWithInventory(int beerId) {
+        return webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).queryParam("showInventory", true).build(beerId))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .block();
+    }
+
+    private List<BeerStockUpdateResult> postStockUpdates(List<BeerStockUpdate> stockUpdates) {
+        return webClient.post().uri(BEER_V2_URL_STOCK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(stockUpdates))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerStockUpdateResult.class)
+                .collectList()
+                .block();
+    }
+
+    @Test
+    void shouldServeNewVersionAfterQuantityOnlyStockUpdate() {
+        // read first so the beer is cached at its old version
+        final var before = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(14))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .block();
+
+        webClient.post().uri(BEER_V2_URL_STOCK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(List.of(BeerStockUpdate.builder().id(14).quantityOnHandDelta(4).build())))
+                .retrieve()
+                .bodyToFlux(BeerStockUpdateResult.class)
+                .blockLast();
+
+        final var after = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(14))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().toEntity(BeerDto.class)
+                .block();
+
+        final var update = BeerDto.builder()
+                .beerName(before.getBeerName())
+                .beerStyle(before.getBeerStyle())
+                .upc(before.getUpc())
+                .price(before.getPrice())
+                .version(after.getBody().getVersion())
+                .build();
+
+        final var updated = webClient.put().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(14))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(update))
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        assertThat(after.getBody().getVersion()).isEqualTo(before.getVersion() + 1);
+        assertThat(after.getHeaders().getETag()).isEqualTo("\"beer-14-" + after.getBody().getVersion() + "\"");
+        assertThat(updated).isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    void shouldReserveAndReleaseStock() {
+        final var beerDto = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID)
+                        .queryParam("showInventory", true).build(12))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToMono(BeerDto.class)
+                .block();
+
+        final var reserved = webClient.post().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_RESERVE)
+                        .queryParam("quantity", beerDto.getQuantityOnHand()).build(12))
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        final var overReserved = webClient.post().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_RESERVE)
+                        .queryParam("quantity", 1).build(12))
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        final var released = webClient.post().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_RELEASE)
+                        .queryParam("quantity", beerDto.getQuantityOnHand()).build(12))
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        final var missing = webClient.post().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_RESERVE).build(1200))
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        assertThat(reserved).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(overReserved).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(released).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(missing).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldRejectDuplicateUpc() {
+        final var beerDto = BeerDto.builder()
+                .beerName("Duplicate")
+                .upc(BeerLoader.BEER_3_UPC)
+                .beerStyle("PALE_ALE")
+                .price(new BigDecimal("8.99"))
+                .build();
+
+        final var status = webClient.post().uri(BEER_V2_URL)
+                .body(BodyInserters.fromValue(beerDto))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        assertThat(status).isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     void shouldCreateNewBeerBadRequest() throws InterruptedException {
         CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -174,7 +568,7 @@ public class WebClientV2IT {
 
         BeerDto beerDto = BeerDto.builder()
                 .beerName("New Beer:UPDATED")
-                .upc("123")
+                .upc("v2-updated")
                 .beerStyle("PALE_ALE")
                 .price(new BigDecimal(12.34))
                 .build();
@@ -209,13 +603,45 @@ public class WebClientV2IT {
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
 
+    @Test
+    void shouldRejectUpdateWithStaleVersion() {
+        final var beerDto = webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(6))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(BeerDto.class)
+                .block();
+
+        final var update = BeerDto.builder()
+                .beerName(beerDto.getBeerName())
+                .beerStyle(beerDto.getBeerStyle())
+                .upc(beerDto.getUpc())
+                .price(new BigDecimal("9.99"))
+                .version(beerDto.getVersion())
+                .build();
+
+        final var first = webClient.put().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(6))
+                .body(BodyInserters.fromValue(update))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        final var second = webClient.put().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_BEER_ID).build(6))
+                .body(BodyInserters.fromValue(update))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        assertThat(first).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(second).isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     void shouldUpdateBeerNotFound() throws InterruptedException {
         CountDownLatch countDownLatch = new CountDownLatch(1);
 
         BeerDto beerDto = BeerDto.builder()
                 .beerName("New Beer:UPDATED")
-                .upc("123")
+                .upc("v2-missing")
                 .beerStyle("PALE_ALE")
                 .price(new BigDecimal(12.34))
                 .build();
@@ -263,6 +689,62 @@ public class WebClientV2IT {
         assertThat(countDownLatch.getCount()).isEqualTo(0);
     }
 
+    @Test
+    void shouldSearchBeersByNamePrefix() {
+        final var created = webClient.post().uri(BEER_V2_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(BeerDto.builder().beerName("Zwickel Über Zwei").beerStyle("LAGER")
+                        .upc("v2-search").price(new BigDecimal("8.99")).build()))
+                .retrieve().toBodilessEntity()
+                .block();
+
+        final var porters = search("porter");
+        final var hazy = search("VER haz");
+        final var zwickel = search("uber zw");
+
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(porters).extracting(BeerSuggestion::getBeerName).contains("PBS Porter", "Pinball Porter");
+        assertThat(hazy).extracting(BeerSuggestion::getId).containsExactly(8);
+        assertThat(zwickel).extracting(BeerSuggestion::getBeerName).containsExactly("Zwickel Über Zwei");
+    }
+
+    private List<BeerSuggestion> search(String query) {
+        return webClient.get().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL_SEARCH).queryParam("query", query).build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve().bodyToFlux(BeerSuggestion.class)
+                .collectList()
+                .block();
+    }
+
+    @Test
+    void shouldDeleteBeersInBulk() throws InterruptedException {
+        CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        webClient.delete().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL).queryParam("ids", "28,29,12000").build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(Integer.class)
+                .subscribe(deleted -> {
+                    assertThat(deleted).isEqualTo(2);
+                    countDownLatch.countDown();
+                });
+
+        countDownLatch.await(1000, TimeUnit.MILLISECONDS);
+        assertThat(countDownLatch.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldRejectBulkDeleteOfMoreThanAPage() {
+        final var ids = IntStream.rangeClosed(5001, 5101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        final var status = webClient.delete().uri(uriBuilder -> uriBuilder.path(BEER_V2_URL).queryParam("ids", ids).build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> Mono.just(response.statusCode()))
+                .block();
+
+        assertThat(status).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void testShouldDeleteBeerNotFound() throws InterruptedException {
         CountDownLatch countDownLatch = new CountDownLatch(1);